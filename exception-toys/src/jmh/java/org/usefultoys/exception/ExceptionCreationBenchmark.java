@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.usefultoys.exception.bug.ImpossibleCondition;
+import org.usefultoys.exception.bug.ImpossibleException;
+import org.usefultoys.exception.bug.ImpossibleMethod;
+import org.usefultoys.exception.design.TemporalDependency;
+import org.usefultoys.exception.design.UnsupportedCallOrder;
+import org.usefultoys.exception.design.UnsupportedCondition;
+import org.usefultoys.exception.design.UnsupportedData;
+import org.usefultoys.exception.design.UnsupportedException;
+import org.usefultoys.exception.design.UnsupportedMethod;
+import org.usefultoys.exception.design.UnsupportedReentrancy;
+import org.usefultoys.exception.unimplemented.UnimplementedCondition;
+import org.usefultoys.exception.unimplemented.UnimplementedException;
+import org.usefultoys.exception.unimplemented.UnimplementedMethod;
+
+/**
+ * Cost of creating each exception of the <code>bug</code>, <code>design</code> and <code>unimplemented</code> packages.
+ * The exception is created <code>depth</code> frames below the benchmark method.
+ *
+ * @author Daniel Felix Ferber
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExceptionCreationBenchmark {
+
+    public enum Type {
+        IMPOSSIBLE_CONDITION, IMPOSSIBLE_METHOD, IMPOSSIBLE_EXCEPTION,
+        UNSUPPORTED_CONDITION, UNSUPPORTED_METHOD, UNSUPPORTED_CALL_ORDER, UNSUPPORTED_REENTRANCY,
+        UNSUPPORTED_EXCEPTION, UNSUPPORTED_DATA, TEMPORAL_DEPENDENCY,
+        UNIMPLEMENTED_CONDITION, UNIMPLEMENTED_METHOD, UNIMPLEMENTED_EXCEPTION
+    }
+
+    @Param
+    Type type;
+
+    @Param({ "1", "16", "128" })
+    int depth;
+
+    final String message = "message";
+    final IOException cause = new IOException();
+
+    @Benchmark
+    public RuntimeException create() {
+        return create(depth);
+    }
+
+    private RuntimeException create(final int remaining) {
+        if (remaining > 1) {
+            return create(remaining - 1);
+        }
+        switch (type) {
+            case IMPOSSIBLE_CONDITION: return new ImpossibleCondition(message);
+            case IMPOSSIBLE_METHOD: return new ImpossibleMethod(message);
+            case IMPOSSIBLE_EXCEPTION: return new ImpossibleException(message, cause);
+            case UNSUPPORTED_CONDITION: return new UnsupportedCondition(message);
+            case UNSUPPORTED_METHOD: return new UnsupportedMethod(message);
+            case UNSUPPORTED_CALL_ORDER: return new UnsupportedCallOrder(message);
+            case UNSUPPORTED_REENTRANCY: return new UnsupportedReentrancy(message);
+            case UNSUPPORTED_EXCEPTION: return new UnsupportedException(message, cause);
+            case UNSUPPORTED_DATA: return new UnsupportedData(message);
+            case TEMPORAL_DEPENDENCY: return new TemporalDependency(message);
+            case UNIMPLEMENTED_CONDITION: return new UnimplementedCondition(message);
+            case UNIMPLEMENTED_METHOD: return new UnimplementedMethod(message);
+            case UNIMPLEMENTED_EXCEPTION: return new UnimplementedException(message, cause);
+            default: throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Success path of {@link Assert#notNull(Object...)} and {@link Assert#checkAll(boolean...)}
+ * compared to their fixed-arity overloads.
+ * With the GC profiler, <code>gc.alloc.rate.norm</code> must report 0 B/op for the fixed-arity benchmarks.
+ * Escape analysis is disabled, otherwise inlining may hide the varargs allocation.
+ *
+ * @author Daniel Felix Ferber
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+public class AssertArityBenchmark {
+
+    enum Rule { ANY }
+
+    Object a = "a";
+    Object b = "b";
+    Object c = "c";
+    boolean x = true;
+    boolean y = true;
+    boolean z = true;
+
+    @Benchmark
+    public boolean notNullVarargs() {
+        return Assert.Argument.notNull(new Object[] { a, b, c });
+    }
+
+    @Benchmark
+    public boolean notNullFixed() {
+        return Assert.Argument.notNull(a, b, c);
+    }
+
+    @Benchmark
+    public boolean checkAllVarargs() {
+        return Assert.Argument.checkAll(new boolean[] { x, y, z });
+    }
+
+    @Benchmark
+    public boolean checkAllFixed() {
+        return Assert.Argument.checkAll(x, y, z);
+    }
+
+    @Benchmark
+    public boolean checkAllRuleVarargs() {
+        return Assert.Argument.checkAll(Rule.ANY, new boolean[] { x, y, z });
+    }
+
+    @Benchmark
+    public boolean checkAllRuleFixed() {
+        return Assert.Argument.checkAll(Rule.ANY, x, y, z);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Bulk array checks of {@link Assert} compared to the hand-written loop they replace.
+ * Arrays are valid, so every element is examined. The largest size is scanned by several threads.
+ *
+ * @author Daniel Felix Ferber
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class AssertArrayBenchmark {
+
+    @Param({ "1000", "100000", "4000000" })
+    int size;
+
+    double[] doubles;
+    long[] longs;
+
+    @Setup
+    public void setUp() {
+        doubles = new double[size];
+        longs = new long[size];
+        for (int i = 0; i < size; i++) {
+            doubles[i] = i * 0.5;
+            longs[i] = i;
+        }
+    }
+
+    @Benchmark
+    public boolean finiteLoop() {
+        for (final double v : doubles) {
+            if (Double.isNaN(v) || Double.isInfinite(v)) throw new IllegalArgumentException();
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean finiteBulk() {
+        return Assert.Argument.allFinite(doubles);
+    }
+
+    @Benchmark
+    public boolean nonNegativeLoop() {
+        for (final long v : longs) {
+            if (v < 0) throw new IllegalArgumentException();
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean nonNegativeBulk() {
+        return Assert.Argument.allNonNegative(longs);
+    }
+
+    @Benchmark
+    public boolean rangeLoop() {
+        for (final long v : longs) {
+            if (v < 0 || v > size) throw new IllegalArgumentException();
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean rangeBulk() {
+        return Assert.Argument.allInRange(longs, 0L, size);
+    }
+}
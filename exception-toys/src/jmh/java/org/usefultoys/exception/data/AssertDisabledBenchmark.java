@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Invariant checks with the category enabled and disabled by system property.
+ * The disabled benchmarks must stay close to {@link #baseline()}: the static final flag and the runtime switch both
+ * fold to constants, so the check reduces to nothing, and with the guard the condition is not evaluated.
+ * The enabled benchmarks read no switch at all.
+ * The loop benchmarks check every element; {@link #disabledLoop()} must stay close to {@link #baselineLoop()}.
+ * The switched benchmark starts disabled and switches the category on at runtime. It requires the Java 9 classes,
+ * which 'gradle jmh' does not use; run it from the benchmark jar with the Java 9 classes first on the class path:
+ * <pre>
+ * java -cp build/classes/java/java9:build/libs/exception-toys-1.0.0-jmh.jar org.openjdk.jmh.Main AssertDisabledBenchmark
+ * </pre>
+ *
+ * @author Daniel Felix Ferber
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class AssertDisabledBenchmark {
+
+    private static final String DISABLED = "-Dorg.usefultoys.exception.data.Assert.Invariant.enabled=false";
+
+    int[] values = { 3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5, 8, 9, 7, 9, 3 };
+    int index = 5;
+
+    private boolean allNonNegative() {
+        for (int v : values) {
+            if (v < 0) return false;
+        }
+        return true;
+    }
+
+    @Benchmark
+    public int baseline() {
+        return values[index];
+    }
+
+    @Benchmark
+    public int enabled() {
+        Assert.Invariant.range(index, values);
+        return values[index];
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = DISABLED)
+    public int disabled() {
+        Assert.Invariant.range(index, values);
+        return values[index];
+    }
+
+    @Benchmark
+    public int enabledExpensive() {
+        if (Assert.Invariant.isEnabled()) Assert.Invariant.check(allNonNegative());
+        return values[index];
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = DISABLED)
+    public int disabledExpensive() {
+        if (Assert.Invariant.isEnabled()) Assert.Invariant.check(allNonNegative());
+        return values[index];
+    }
+
+    @Benchmark
+    public int baselineLoop() {
+        int sum = 0;
+        for (int i = 0; i < values.length; i++) sum += values[i];
+        return sum;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = DISABLED)
+    public int disabledLoop() {
+        int sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            Assert.Invariant.nonNegative(values[i]);
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @State(Scope.Benchmark)
+    public static class SwitchedOn {
+        @Setup
+        public void setUp() {
+            Assert.Invariant.setSwitchedOn(true);
+        }
+
+        @TearDown
+        public void tearDown() {
+            Assert.Invariant.setSwitchedOn(false);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = DISABLED)
+    public int switched(SwitchedOn switchedOn) {
+        Assert.Invariant.range(index, values);
+        return values[index];
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.usefultoys.exception.data.AssertSuccessBenchmark.Family;
+
+/**
+ * Failure path of each {@link Assert} method family: creating the exception and unwinding the stack.
+ * The check fails <code>depth</code> frames below the benchmark method, where the exception is caught.
+ * Stack depth only affects cost when the stack trace is filled in.
+ *
+ * @author Daniel Felix Ferber
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AssertFailureBenchmark {
+
+    @Param
+    Family family;
+
+    @Param({ "1", "16", "128" })
+    int depth;
+
+    @Param
+    Assert.TraceMode trace;
+
+    Assert validation;
+    final Object value = "z";
+    final List<String> collection = Arrays.asList("a", "b", "c");
+    int number = -5;
+    boolean condition = false;
+
+    @Setup
+    public void setup() {
+        validation = new Assert.Argument();
+        validation.setTraceMode(trace);
+    }
+
+    @Benchmark
+    public Object failure() {
+        try {
+            return Boolean.valueOf(fail(depth));
+        } catch (IllegalArgumentData e) {
+            return e;
+        }
+    }
+
+    private boolean fail(final int remaining) {
+        if (remaining > 1) {
+            return fail(remaining - 1);
+        }
+        switch (family) {
+            case CHECK: return validation.check(condition);
+            case NOT_NULL: return validation.notNull((Object) null);
+            case EQUAL: return validation.equal(number, 5);
+            case RANGE: return validation.range(number, 0, 10);
+            case CONTAINS: return validation.contains(value, collection);
+            case POSITIVE: return validation.positive(number);
+            default: throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Success path of the primitive checks of {@link Assert}, for each primitive type.
+ * With the GC profiler, <code>gc.alloc.rate.norm</code> must report 0 B/op for all benchmarks except {@link #boxedRange()},
+ * which shows what the generic {@link Assert#range(Comparable, Comparable, Comparable)} costs.
+ * Escape analysis is disabled, otherwise inlining may hide boxing.
+ * Values are outside the {@link Integer#valueOf(int)} cache, so boxing always allocates.
+ *
+ * @author Daniel Felix Ferber
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-XX:-DoEscapeAnalysis")
+public class AssertPrimitiveBenchmark {
+
+    byte b = 100;
+    short s = 1000;
+    int i = 100000;
+    long l = 100000L;
+    float f = 1000.5f;
+    double d = 1000.5;
+
+    @Benchmark
+    public boolean byteRange() {
+        return Assert.Argument.range(b, (byte) 0, (byte) 127) & Assert.Argument.rangeInclusive(b, (byte) 0, (byte) 100)
+            & Assert.Argument.equal(b, (byte) 100) & Assert.Argument.positive(b) & Assert.Argument.nonNegative(b);
+    }
+
+    @Benchmark
+    public boolean shortRange() {
+        return Assert.Argument.range(s, (short) 0, (short) 2000) & Assert.Argument.rangeInclusive(s, (short) 0, (short) 1000)
+            & Assert.Argument.equal(s, (short) 1000) & Assert.Argument.positive(s) & Assert.Argument.nonNegative(s);
+    }
+
+    @Benchmark
+    public boolean intRange() {
+        return Assert.Argument.range(i, 0, 200000) & Assert.Argument.rangeInclusive(i, 0, 100000)
+            & Assert.Argument.equal(i, 100000) & Assert.Argument.positive(i) & Assert.Argument.nonNegative(i);
+    }
+
+    @Benchmark
+    public boolean longRange() {
+        return Assert.Argument.range(l, 0L, 200000L) & Assert.Argument.rangeInclusive(l, 0L, 100000L)
+            & Assert.Argument.equal(l, 100000L) & Assert.Argument.positive(l) & Assert.Argument.nonNegative(l);
+    }
+
+    @Benchmark
+    public boolean floatRange() {
+        return Assert.Argument.range(f, 0f, 2000f) & Assert.Argument.rangeInclusive(f, 0f, 1000.5f)
+            & Assert.Argument.equal(f, 1000.5f) & Assert.Argument.positive(f) & Assert.Argument.nonNegative(f)
+            & Assert.Argument.finite(f);
+    }
+
+    @Benchmark
+    public boolean doubleRange() {
+        return Assert.Argument.range(d, 0.0, 2000.0) & Assert.Argument.rangeInclusive(d, 0.0, 1000.5)
+            & Assert.Argument.equal(d, 1000.5) & Assert.Argument.positive(d) & Assert.Argument.nonNegative(d)
+            & Assert.Argument.finite(d);
+    }
+
+    @Benchmark
+    public boolean boxedRange() {
+        return Assert.Argument.range(Double.valueOf(d), Double.valueOf(0.0), Double.valueOf(2000.0));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Success path of each {@link Assert} method family.
+ * Baseline for the cost a passing check adds to the caller.
+ *
+ * @author Daniel Felix Ferber
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AssertSuccessBenchmark {
+
+    public enum Family { CHECK, NOT_NULL, EQUAL, RANGE, CONTAINS, POSITIVE }
+
+    @Param
+    Family family;
+
+    final Object value = "b";
+    final List<String> collection = Arrays.asList("a", "b", "c");
+    int number = 5;
+    boolean condition = true;
+
+    @Benchmark
+    public boolean success() {
+        switch (family) {
+            case CHECK: return Assert.Argument.check(condition);
+            case NOT_NULL: return Assert.Argument.notNull(value);
+            case EQUAL: return Assert.Argument.equal(number, 5);
+            case RANGE: return Assert.Argument.range(number, 0, 10);
+            case CONTAINS: return Assert.Argument.contains(value, collection);
+            case POSITIVE: return Assert.Argument.positive(number);
+            default: throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reports exceptions with {@link ExceptionService#reportException(PrintStream, Throwable)} on a single background thread.
+ * The throwing thread only enqueues the exception into a bounded buffer and does not wait for the stream.
+ * When the buffer is full, the {@link Overflow} policy decides which report is lost, or if the caller waits.
+ * <p>
+ * Example:
+ * <pre>
+ * AsyncExceptionReporter reporter = new AsyncExceptionReporter(System.err, 1024, Overflow.DROP_OLDEST).start();
+ * reporter.installShutdownHook();
+ * ...
+ * reporter.report(e);
+ * </pre>
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class AsyncExceptionReporter {
+
+	/** What happens to a report when the buffer is full. */
+	public enum Overflow {
+		/** Discard the oldest pending report to make room for the new one. */
+		DROP_OLDEST,
+		/** Discard the new report. */
+		DROP_NEWEST,
+		/** Wait until there is room in the buffer. */
+		BLOCK
+	}
+
+	/** Reports written together before flushing the stream. */
+	private static final int BATCH = 64;
+	private static final long POLL_MILLIS = 100;
+
+	private final PrintStream stream;
+	private final Overflow overflow;
+	private final ExceptionThrottle throttle;
+	private final BlockingQueue<Throwable> buffer;
+	private final StripedCounter dropped = new StripedCounter();
+	private volatile long reported = 0;
+	private volatile boolean closed = false;
+	/** Set by the background thread once it no longer takes reports from the buffer. */
+	private volatile boolean finished = false;
+	private final AtomicBoolean started = new AtomicBoolean();
+	private final Thread consumer;
+
+	public AsyncExceptionReporter(final PrintStream stream, final int capacity, final Overflow overflow) {
+		this(stream, capacity, overflow, null);
+	}
+
+	/**
+	 * Reporter that writes repeated failures through the throttle, on the background thread.
+	 * Pending summaries are written on {@link #close(long, TimeUnit)}.
+	 */
+	public AsyncExceptionReporter(final PrintStream stream, final int capacity, final Overflow overflow, final ExceptionThrottle throttle) {
+		if (stream == null) throw new IllegalArgumentException("stream");
+		if (capacity < 1) throw new IllegalArgumentException("capacity");
+		if (overflow == null) throw new IllegalArgumentException("overflow");
+		this.stream = stream;
+		this.overflow = overflow;
+		this.throttle = throttle;
+		this.buffer = new ArrayBlockingQueue<Throwable>(capacity);
+		this.consumer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				consume();
+			}
+		}, "exception-reporter");
+		this.consumer.setDaemon(true);
+	}
+
+	/** Starts the background thread. Does nothing if already started. */
+	public AsyncExceptionReporter start() {
+		if (started.compareAndSet(false, true)) consumer.start();
+		return this;
+	}
+
+	/**
+	 * Enqueues the exception to be reported.
+	 * Returns immediately, unless the buffer is full and the policy is {@link Overflow#BLOCK}.
+	 * @return false if the report was discarded
+	 */
+	public boolean report(final Throwable exception) {
+		if (closed) {
+			dropped.increment();
+			return false;
+		}
+		if (! enqueue(exception)) return false;
+		/* Closed meanwhile: if the background thread is already gone, nobody else takes the report. */
+		return ! (closed && finished && discardPending(exception));
+	}
+
+	/**
+	 * Enqueues the report according to the overflow policy. Reports discarded because the buffer is full,
+	 * or because the caller was interrupted while waiting, are counted as dropped.
+	 * @return false if the new report was discarded
+	 */
+	private boolean enqueue(final Throwable exception) {
+		switch (overflow) {
+			case DROP_NEWEST:
+				if (buffer.offer(exception)) return true;
+				dropped.increment();
+				return false;
+			case DROP_OLDEST:
+				while (! buffer.offer(exception)) {
+					if (buffer.poll() != null) dropped.increment();
+				}
+				return true;
+			default:
+				try {
+					buffer.put(exception);
+					return true;
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					dropped.increment();
+					return false;
+				}
+		}
+	}
+
+	/** Reports discarded because the buffer was full or the reporter was closed. */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/** Reports processed by the background thread. */
+	public long getReportedCount() {
+		return reported;
+	}
+
+	/** Reports waiting in the buffer. */
+	public int getPendingCount() {
+		return buffer.size();
+	}
+
+	/**
+	 * Stops accepting reports, writes all pending reports and stops the background thread.
+	 * Starts the background thread if not started yet, so that pending reports are written.
+	 * Waits at most the given time for the pending reports; with zero, does not wait.
+	 * Reports made concurrently with close are either written or counted as dropped.
+	 * @return true if all pending reports were written
+	 */
+	public boolean close(final long timeout, final TimeUnit unit) throws InterruptedException {
+		closed = true;
+		start();
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (long remaining = timeout; remaining > 0 && consumer.isAlive(); ) {
+			remaining = deadline - System.nanoTime();
+			if (remaining > 0) consumer.join(TimeUnit.NANOSECONDS.toMillis(remaining), (int) (remaining % 1000000L));
+		}
+		return finished;
+	}
+
+	/** Calls {@link #close(long, TimeUnit)} when the JVM shuts down, waiting at most 5 seconds. */
+	public void installShutdownHook() {
+		Runtime.getRuntime().addShutdownHook(new Thread("exception-reporter-shutdown") {
+			@Override
+			public void run() {
+				try {
+					AsyncExceptionReporter.this.close(5, TimeUnit.SECONDS);
+				} catch (final InterruptedException e) {
+					// JVM is exiting anyway
+				}
+			}
+		});
+	}
+
+	/** Reports uncaught exceptions of all threads through this reporter. */
+	public void installUncaughtExceptionHandler() {
+		Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+			@Override
+			public void uncaughtException(final Thread thread, final Throwable exception) {
+				report(exception);
+			}
+		});
+	}
+
+	private void consume() {
+		final List<Throwable> batch = new ArrayList<Throwable>(BATCH);
+		while (! closed || ! buffer.isEmpty()) {
+			try {
+				final Throwable first = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (first == null) continue;
+				batch.add(first);
+				buffer.drainTo(batch, BATCH - 1);
+				write(batch);
+			} catch (final InterruptedException e) {
+				// only close() stops the reporter
+			}
+		}
+		buffer.drainTo(batch);
+		write(batch);
+		if (throttle != null) {
+			throttle.flush(stream);
+			stream.flush();
+		}
+		finished = true;
+		discardPending(null);
+	}
+
+	/**
+	 * Counts reports left in the buffer after the background thread finished as dropped.
+	 * @return true if the given report was among them
+	 */
+	private boolean discardPending(final Throwable exception) {
+		boolean found = false;
+		for (Throwable pending = buffer.poll(); pending != null; pending = buffer.poll()) {
+			dropped.increment();
+			if (pending == exception) found = true;
+		}
+		return found;
+	}
+
+	private void write(final List<Throwable> batch) {
+		for (final Throwable exception : batch) {
+			try {
+				if (throttle == null) {
+					ExceptionService.reportException(stream, exception);
+				} else {
+					throttle.report(stream, exception);
+				}
+			} catch (final RuntimeException e) {
+				// a report that fails to render must not stop the reporter
+				e.printStackTrace(stream);
+			}
+			reported++;
+		}
+		batch.clear();
+		stream.flush();
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+/**
+ * Reports created exceptions to the Java Flight Recorder, as <code>org.usefultoys.exception.ExceptionCreated</code> events.
+ * Called for exceptions of the <code>bug</code>, <code>design</code> and <code>unimplemented</code> packages
+ * and for failed {@link org.usefultoys.exception.data.Assert} checks.
+ * <p>
+ * This implementation does nothing. On Java 11 and later, the multi-release jar replaces it
+ * by one that commits an event if enabled in the JFR recording settings.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class ExceptionEvents {
+	private ExceptionEvents() {
+		// cannot create instance
+	}
+
+	/**
+	 * Reports the exception, if events are enabled.
+	 * @param exception the exception just created
+	 * @param category the {@link org.usefultoys.exception.data.Assert} category, or <code>null</code> for the package of the exception
+	 * @param detail the rule or message template, or <code>null</code> for the exception message
+	 * @return the exception
+	 */
+	public static <T extends Throwable> T created(final T exception, final String category, final Object detail) {
+		return exception;
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Stable 64 bit fingerprint of an exception and its causes.
+ * Exceptions with the same fingerprint are considered repetitions of the same failure.
+ * <p>
+ * For each exception in the cause chain, the fingerprint combines the class name, the message template
+ * (message with numbers replaced by <code>#</code>) and the top frames of the stack trace.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class ExceptionFingerprint {
+	private ExceptionFingerprint() {
+		// cannot create instance
+	}
+
+	/** Default number of top frames of each cause that contribute to the fingerprint. */
+	public static final int DEFAULT_FRAMES = 5;
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/** Fingerprint with {@link #DEFAULT_FRAMES} frames of each cause. */
+	public static long of(final Throwable exception) {
+		return of(exception, DEFAULT_FRAMES);
+	}
+
+	/** Fingerprint with the given number of top frames of each cause. */
+	public static long of(final Throwable exception, final int frames) {
+		long hash = FNV_OFFSET;
+		final Map<Throwable, Boolean> visited = new IdentityHashMap<Throwable, Boolean>();
+		for (Throwable t = exception; t != null && visited.put(t, Boolean.TRUE) == null; t = t.getCause()) {
+			hash = hash(hash, t.getClass().getName());
+			hash = hash(hash, template(t.getMessage()));
+			final StackTraceElement[] trace = t.getStackTrace();
+			final int n = Math.min(frames, trace.length);
+			for (int i = 0; i < n; i++) {
+				hash = hash(hash, trace[i].getClassName());
+				hash = hash(hash, trace[i].getMethodName());
+				hash = hash(hash, trace[i].getLineNumber());
+			}
+		}
+		return hash;
+	}
+
+	/** Message with each sequence of digits replaced by <code>#</code>. */
+	public static String template(final String message) {
+		if (message == null) return null;
+		final StringBuilder sb = new StringBuilder(message.length());
+		boolean digits = false;
+		for (int i = 0; i < message.length(); i++) {
+			final char c = message.charAt(i);
+			if (c >= '0' && c <= '9') {
+				if (! digits) sb.append('#');
+				digits = true;
+			} else {
+				sb.append(c);
+				digits = false;
+			}
+		}
+		return sb.toString();
+	}
+
+	/** Fingerprint as 16 hex digits. */
+	public static String toString(final long fingerprint) {
+		final String hex = Long.toHexString(fingerprint);
+		return "0000000000000000".substring(hex.length()) + hex;
+	}
+
+	private static long hash(long hash, final String s) {
+		if (s == null) return hash(hash, -1);
+		for (int i = 0; i < s.length(); i++) {
+			hash ^= s.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return hash(hash, s.length());
+	}
+
+	private static long hash(long hash, final int value) {
+		for (int i = 0; i < 4; i++) {
+			hash ^= (value >>> (i * 8)) & 0xff;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts failed {@link org.usefultoys.exception.data.Assert} checks by category
+ * and created <code>bug</code>, <code>design</code> and <code>unimplemented</code> exceptions by class.
+ * Counters are updated when the exception is created, without locks or logging.
+ * Read them with {@link #getCategoryCounts()} and {@link #getClassCounts()}, or through JMX after {@link #registerMBean()}.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class ExceptionStatistics {
+	private ExceptionStatistics() {
+		// cannot create instance
+	}
+
+	public static final String OBJECT_NAME = "org.usefultoys.exception:type=ExceptionStatistics";
+
+	private static final ConcurrentMap<String, StripedCounter> categories = new ConcurrentHashMap<String, StripedCounter>();
+	private static final ConcurrentMap<Class<?>, StripedCounter> classes = new ConcurrentHashMap<Class<?>, StripedCounter>();
+
+	/** Counter for failed checks of the given category. Callers keep the counter to avoid the lookup on each failure. */
+	public static StripedCounter category(final String name) {
+		StripedCounter counter = categories.get(name);
+		if (counter == null) {
+			final StripedCounter newCounter = new StripedCounter();
+			counter = categories.putIfAbsent(name, newCounter);
+			if (counter == null) counter = newCounter;
+		}
+		return counter;
+	}
+
+	/** Counts the exception by its class and reports it to {@link ExceptionEvents}. Called by the exception constructor. */
+	public static void count(final Throwable exception) {
+		final Class<?> type = exception.getClass();
+		StripedCounter counter = classes.get(type);
+		if (counter == null) {
+			final StripedCounter newCounter = new StripedCounter();
+			counter = classes.putIfAbsent(type, newCounter);
+			if (counter == null) counter = newCounter;
+		}
+		counter.increment();
+		ExceptionEvents.created(exception, null, null);
+	}
+
+	/** Snapshot of failed checks by category, sorted by name. */
+	public static SortedMap<String, Long> getCategoryCounts() {
+		final SortedMap<String, Long> result = new TreeMap<String, Long>();
+		for (final Map.Entry<String, StripedCounter> entry : categories.entrySet()) {
+			result.put(entry.getKey(), Long.valueOf(entry.getValue().sum()));
+		}
+		return Collections.unmodifiableSortedMap(result);
+	}
+
+	/** Snapshot of created exceptions by class name, sorted by name. */
+	public static SortedMap<String, Long> getClassCounts() {
+		final SortedMap<String, Long> result = new TreeMap<String, Long>();
+		for (final Map.Entry<Class<?>, StripedCounter> entry : classes.entrySet()) {
+			result.put(entry.getKey().getName(), Long.valueOf(entry.getValue().sum()));
+		}
+		return Collections.unmodifiableSortedMap(result);
+	}
+
+	/** Sets all counters to zero. */
+	public static void reset() {
+		for (final StripedCounter counter : categories.values()) counter.reset();
+		for (final StripedCounter counter : classes.values()) counter.reset();
+	}
+
+	/** Publishes the counters on the platform MBean server as {@value #OBJECT_NAME}. Does nothing if already published. */
+	public static void registerMBean() {
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(OBJECT_NAME);
+			if (! server.isRegistered(name)) server.registerMBean(new MXBean(), name);
+		} catch (final JMException e) {
+			throw new IllegalStateException("Failed to register " + OBJECT_NAME, e);
+		}
+	}
+
+	/** Removes the counters from the platform MBean server. */
+	public static void unregisterMBean() {
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) server.unregisterMBean(name);
+		} catch (final JMException e) {
+			throw new IllegalStateException("Failed to unregister " + OBJECT_NAME, e);
+		}
+	}
+
+	private static final class MXBean implements ExceptionStatisticsMXBean {
+		@Override public Map<String, Long> getCategoryCounts() { return ExceptionStatistics.getCategoryCounts(); }
+		@Override public Map<String, Long> getClassCounts() { return ExceptionStatistics.getClassCounts(); }
+		@Override public void reset() { ExceptionStatistics.reset(); }
+	}
+}
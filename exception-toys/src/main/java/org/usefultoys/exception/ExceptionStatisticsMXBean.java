@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ExceptionStatistics}.
+ *
+ * @author Daniel Felix Ferber
+ */
+public interface ExceptionStatisticsMXBean {
+	/** Failed checks by {@link org.usefultoys.exception.data.Assert} category. */
+	Map<String, Long> getCategoryCounts();
+
+	/** Created exceptions by exception class name. */
+	Map<String, Long> getClassCounts();
+
+	/** Sets all counters to zero. */
+	void reset();
+}
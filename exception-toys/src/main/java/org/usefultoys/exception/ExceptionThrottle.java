@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports only the first occurrence of each failure in full, and then periodic summaries of repetitions.
+ * Failures are identified by {@link ExceptionFingerprint}.
+ * <p>
+ * The first occurrence is written with {@link ExceptionService#reportException(PrintStream, Throwable)}.
+ * Further occurrences are counted. At most once per interval, the next occurrence writes a single line
+ * like <code>seen 12,345 more times in 60s</code>.
+ * <p>
+ * The table keeps at most <code>capacity</code> fingerprints. When full, fingerprints not seen within the
+ * interval are evicted first, then arbitrary ones. An evicted fingerprint first writes the summary of its
+ * repetitions not yet reported, so no occurrence is lost silently. Safe for concurrent use without locks.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class ExceptionThrottle {
+
+	public static final int DEFAULT_CAPACITY = 1024;
+	public static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+	private final int capacity;
+	private final long intervalNanos;
+	private final int frames;
+	private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<Long, Entry>();
+
+	private static final class Entry {
+		final String description;
+		final AtomicLong repetitions = new AtomicLong();
+		final AtomicLong windowStart;
+		volatile long lastSeen;
+
+		Entry(final String description, final long now) {
+			this.description = description;
+			this.windowStart = new AtomicLong(now);
+			this.lastSeen = now;
+		}
+	}
+
+	/** Throttle with {@link #DEFAULT_CAPACITY}, {@link #DEFAULT_INTERVAL_SECONDS} and {@link ExceptionFingerprint#DEFAULT_FRAMES}. */
+	public ExceptionThrottle() {
+		this(DEFAULT_CAPACITY, DEFAULT_INTERVAL_SECONDS, TimeUnit.SECONDS, ExceptionFingerprint.DEFAULT_FRAMES);
+	}
+
+	public ExceptionThrottle(final int capacity, final long interval, final TimeUnit unit, final int frames) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity");
+		if (interval < 0) throw new IllegalArgumentException("interval");
+		if (frames < 0) throw new IllegalArgumentException("frames");
+		this.capacity = capacity;
+		this.intervalNanos = unit.toNanos(interval);
+		this.frames = frames;
+	}
+
+	/**
+	 * Reports the exception in full if it is the first occurrence of its fingerprint,
+	 * a summary line if the interval has elapsed since the last report, or nothing otherwise.
+	 * @return true if the exception was reported in full
+	 */
+	public boolean report(final PrintStream stream, final Throwable exception) {
+		final long now = System.nanoTime();
+		final long fingerprint = ExceptionFingerprint.of(exception, frames);
+		final Long key = Long.valueOf(fingerprint);
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			if (entries.size() >= capacity) evict(stream, now);
+			final Entry newEntry = new Entry(exception.getClass().getName() + ": " + exception.getMessage(), now);
+			entry = entries.putIfAbsent(key, newEntry);
+			if (entry == null) {
+				ExceptionService.reportException(stream, exception);
+				return true;
+			}
+		}
+		entry.lastSeen = now;
+		entry.repetitions.incrementAndGet();
+		final long start = entry.windowStart.get();
+		if (now - start >= intervalNanos && entry.windowStart.compareAndSet(start, now)) {
+			summary(stream, fingerprint, entry, now - start);
+		}
+		return false;
+	}
+
+	/** Writes summaries for all fingerprints with repetitions not yet reported. */
+	public void flush(final PrintStream stream) {
+		final long now = System.nanoTime();
+		for (final Map.Entry<Long, Entry> e : entries.entrySet()) {
+			final Entry entry = e.getValue();
+			final long start = entry.windowStart.get();
+			if (entry.repetitions.get() > 0 && entry.windowStart.compareAndSet(start, now)) {
+				summary(stream, e.getKey().longValue(), entry, now - start);
+			}
+		}
+	}
+
+	/** Number of fingerprints currently tracked. */
+	public int size() {
+		return entries.size();
+	}
+
+	private void summary(final PrintStream stream, final long fingerprint, final Entry entry, final long elapsedNanos) {
+		final long repetitions = entry.repetitions.getAndSet(0);
+		if (repetitions == 0) return;
+		stream.println(String.format("[%s] %s: seen %,d more times in %ds",
+			ExceptionFingerprint.toString(fingerprint), entry.description,
+			Long.valueOf(repetitions), Long.valueOf(TimeUnit.NANOSECONDS.toSeconds(elapsedNanos))));
+	}
+
+	private void evict(final PrintStream stream, final long now) {
+		for (final Iterator<Map.Entry<Long, Entry>> i = entries.entrySet().iterator(); i.hasNext();) {
+			final Map.Entry<Long, Entry> e = i.next();
+			if (now - e.getValue().lastSeen >= intervalNanos) remove(stream, e, now);
+		}
+		for (final Iterator<Map.Entry<Long, Entry>> i = entries.entrySet().iterator(); i.hasNext() && entries.size() >= capacity;) {
+			remove(stream, i.next(), now);
+		}
+	}
+
+	/** Removes the fingerprint, then writes the summary of its repetitions counted until then. */
+	private void remove(final PrintStream stream, final Map.Entry<Long, Entry> e, final long now) {
+		final Entry entry = e.getValue();
+		if (entries.remove(e.getKey(), entry)) summary(stream, e.getKey().longValue(), entry, now - entry.windowStart.get());
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills in the stack trace only for a sample of exceptions created at the same site:
+ * the first occurrences, then one in every so many occurrences.
+ * The other exceptions are created without stack trace, which is much cheaper.
+ * <p>
+ * Each captured stack trace is tagged with a sample number, as an additional last frame.
+ * Exceptions without stack trace have a single frame with the number of the latest sample of the same site.
+ * Searching the log for <code>sample #17</code> finds the full stack trace.
+ * <p>
+ * Applies to exceptions of the <code>bug</code>, <code>design</code> and <code>unimplemented</code> packages,
+ * where the site is the frame that creates the exception (the exception class before Java 9), and to {@link org.usefultoys.exception.data.Assert} categories
+ * in sampled mode, where the site is the category and the rule.
+ * Sampling is disabled by default. State is kept in atomic counters, without locks.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class StackTraceSampler {
+	private StackTraceSampler() {
+		// cannot create instance
+	}
+
+	/** Returned by {@link #sample(Object)} when the stack trace shall not be filled in. */
+	public static final long OMIT = -1L;
+	/** Returned by {@link #sample(Object)} when sampling is disabled: fill in the stack trace, without tag. */
+	public static final long ALWAYS = 0L;
+	/** Maximum number of distinct sites. Further sites share a common counter. */
+	public static final int SITE_LIMIT = 1024;
+
+	private static final String TAG_CLASS = "<sampled>";
+	private static final Object OVERFLOW = new Object();
+
+	private static volatile boolean enabled = false;
+	private static volatile int first;
+	private static volatile int every;
+	private static final AtomicLong sampleSequence = new AtomicLong();
+	private static final ConcurrentMap<Object, Site> sites = new ConcurrentHashMap<Object, Site>();
+	/** Decision of {@link #capture(Throwable)}, read by {@link #captured(Throwable)} on the same thread. */
+	private static final ThreadLocal<long[]> pending = new ThreadLocal<long[]>() {
+		@Override protected long[] initialValue() { return new long[] { ALWAYS }; }
+	};
+
+	private static final class Site {
+		final AtomicLong occurrences = new AtomicLong();
+		volatile long lastSample = 0;
+	}
+
+	/**
+	 * Enables sampling.
+	 * @param first number of occurrences per site that always get a stack trace
+	 * @param every after the first occurrences, one in <code>every</code> occurrences gets a stack trace
+	 */
+	public static void enable(final int first, final int every) {
+		if (first < 0) throw new IllegalArgumentException("first");
+		if (every < 1) throw new IllegalArgumentException("every");
+		StackTraceSampler.first = first;
+		StackTraceSampler.every = every;
+		sites.clear();
+		StackTraceSampler.enabled = true;
+	}
+
+	/** Disables sampling: all exceptions get a stack trace. */
+	public static void disable() {
+		StackTraceSampler.enabled = false;
+		sites.clear();
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Decides if the next exception of the site gets a stack trace.
+	 * If not, tags the exception as omitted and returns {@link #OMIT}.
+	 * Called by {@link Throwable#fillInStackTrace()}, before the stack trace is filled in.
+	 * @return {@link #ALWAYS} if sampling is disabled, {@link #OMIT} or the sample number
+	 */
+	public static long sample(final Throwable exception, final Object site) {
+		if (! enabled) return ALWAYS;
+		final Site state = site(site);
+		final long sample = next(state);
+		if (sample == OMIT) exception.setStackTrace(new StackTraceElement[] { frame("omitted", state.lastSample) });
+		return sample;
+	}
+
+	/**
+	 * Samples exceptions of the <code>bug</code>, <code>design</code> and <code>unimplemented</code> packages
+	 * by throw site: the frame that creates the exception. Their {@link Throwable#fillInStackTrace()} reads:
+	 * <pre>return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;</pre>
+	 * On Java 9 and later, the throw site is found by walking only the top frames.
+	 * Older Java cannot find it without filling in the stack trace, so the site is the exception class there.
+	 * Either way, the decision is taken before filling in the stack trace, and omitted occurrences skip it.
+	 * @return false if the stack trace shall not be filled in; the exception is then already tagged as omitted
+	 */
+	public static boolean capture(final Throwable exception) {
+		if (! enabled) return true;
+		final StackTraceElement site = ThrowSite.current();
+		final long sample = sample(exception, site == null ? exception.getClass() : site);
+		if (sample == OMIT) return false;
+		pending.get()[0] = sample;
+		return true;
+	}
+
+	/** Tags the stack trace just filled in after {@link #capture(Throwable)}, with the sample number decided by it. */
+	public static Throwable captured(final Throwable exception) {
+		if (! enabled) return exception;
+		final long[] slot = pending.get();
+		final long sample = slot[0];
+		slot[0] = ALWAYS;
+		return tag(exception, sample);
+	}
+
+	/**
+	 * Decides if the next exception of the site gets a stack trace, before the exception is created.
+	 * If not, the exception shall be created without stack trace and passed to {@link #omitted(Throwable, Object)}.
+	 * @return {@link #ALWAYS} if sampling is disabled, {@link #OMIT} or the sample number
+	 */
+	public static long sample(final Object site) {
+		if (! enabled) return ALWAYS;
+		return next(site(site));
+	}
+
+	/** Tags an exception created without stack trace with the latest sample of the site. */
+	public static <T extends Throwable> T omitted(final T exception, final Object site) {
+		exception.setStackTrace(new StackTraceElement[] { frame("omitted", site(site).lastSample) });
+		return exception;
+	}
+
+	/** Appends the sample number as last frame of a captured stack trace. Does nothing for {@link #ALWAYS}. */
+	public static <T extends Throwable> T tag(final T exception, final long sample) {
+		if (sample > 0) {
+			final StackTraceElement[] trace = exception.getStackTrace();
+			final StackTraceElement[] tagged = new StackTraceElement[trace.length + 1];
+			System.arraycopy(trace, 0, tagged, 0, trace.length);
+			tagged[trace.length] = frame("captured", sample);
+			exception.setStackTrace(tagged);
+		}
+		return exception;
+	}
+
+	private static long next(final Site state) {
+		final long n = state.occurrences.incrementAndGet();
+		final int limit = first;
+		if (n > limit && (n - limit) % every != 0) return OMIT;
+		final long sample = sampleSequence.incrementAndGet();
+		state.lastSample = sample;
+		return sample;
+	}
+
+	private static StackTraceElement frame(final String kind, final long sample) {
+		return new StackTraceElement(TAG_CLASS, kind, sample > 0 ? "sample #" + sample : "no sample yet", -1);
+	}
+
+	private static Site site(final Object key) {
+		Site state = sites.get(key);
+		if (state == null) {
+			final Object actualKey = sites.size() < SITE_LIMIT ? key : OVERFLOW;
+			final Site newState = new Site();
+			state = sites.putIfAbsent(actualKey, newState);
+			if (state == null) state = newState;
+		}
+		return state;
+	}
+}
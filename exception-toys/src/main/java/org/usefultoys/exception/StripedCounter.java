@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that scales with concurrent updates.
+ * Each thread increments one of several cells, spaced to avoid sharing cache lines.
+ * The total is only computed when read.
+ * Similar to <code>java.util.concurrent.atomic.LongAdder</code>, which is not available on Java 6.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class StripedCounter {
+	/** Distance between cells, in longs, to keep each cell on its own cache line. */
+	private static final int PADDING = 8;
+	private static final int STRIPES = stripes();
+
+	private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+	private static int stripes() {
+		int n = 1;
+		while (n < 2 * Runtime.getRuntime().availableProcessors() && n < 64) n <<= 1;
+		return n;
+	}
+
+	private static int cell() {
+		long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 40) & (STRIPES - 1);
+	}
+
+	public void increment() {
+		cells.incrementAndGet(cell() * PADDING);
+	}
+
+	public void add(long delta) {
+		cells.addAndGet(cell() * PADDING, delta);
+	}
+
+	/** Current total. Not an atomic snapshot if there are concurrent updates. */
+	public long sum() {
+		long sum = 0;
+		for (int i = 0; i < STRIPES; i++) sum += cells.get(i * PADDING);
+		return sum;
+	}
+
+	/** Sets the total to zero. Concurrent updates may be lost. */
+	public void reset() {
+		for (int i = 0; i < STRIPES; i++) cells.set(i * PADDING, 0);
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(sum());
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+/**
+ * Finds the throw site of an exception being created, for {@link StackTraceSampler}.
+ * Java 6 has no way to find it without filling in the stack trace: this implementation does not find it,
+ * and the sampler falls back to the exception class.
+ * On Java 9 and later, the multi-release jar replaces it by one that walks the top frames.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class ThrowSite {
+	private ThrowSite() {
+		// cannot create instance
+	}
+
+	/** Frame that creates the exception being created, or <code>null</code> if unknown before filling in the stack trace. */
+	static StackTraceElement current() {
+		return null;
+	}
+}
@@ -15,6 +15,8 @@
  */
 package org.usefultoys.exception.bug;
 
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
 
 /**
  * Marks a condition that is not possible. If code is correct, then this
@@ -65,9 +67,16 @@ public class ImpossibleCondition extends Impossible {
 
     public ImpossibleCondition() {
         super();
+        ExceptionStatistics.count(this);
     }
 
     public ImpossibleCondition(String message) {
         super(message);
+        ExceptionStatistics.count(this);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;
     }
 }
@@ -15,6 +15,9 @@
  */
 package org.usefultoys.exception.bug;
 
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
+
 /**
  * Marks a declared exception that is not possible be to thrown. If code is
  * correct, then this exception must not be thrown.
@@ -42,10 +45,17 @@ public class ImpossibleException extends Impossible {
 
     public ImpossibleException(Throwable cause) {
         super(cause);
+        ExceptionStatistics.count(this);
     }
 
     public ImpossibleException(String message, Throwable cause) {
         super(message, cause);
+        ExceptionStatistics.count(this);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;
     }
 
     /**
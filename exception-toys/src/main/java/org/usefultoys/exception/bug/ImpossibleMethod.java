@@ -15,6 +15,9 @@
  */
 package org.usefultoys.exception.bug;
 
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
+
 /**
  * Marks a method that is not possible to be called. If code is correct, then
  * this methods must not be called.
@@ -26,9 +29,16 @@ public class ImpossibleMethod extends Impossible {
 
     public ImpossibleMethod() {
         super();
+        ExceptionStatistics.count(this);
     }
 
     public ImpossibleMethod(String message) {
         super(message);
+        ExceptionStatistics.count(this);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An immutable set of allowed values, indexed once for membership checks with
+ * {@link Assert#contains(Object, AllowedValues)} and {@link Assert#contains(long, AllowedValues)}.
+ * Unlike {@link Assert#contains(Object, Collection)} on a list, a check does not scan all values.
+ * <p>
+ * The index depends on the values:
+ * integers within a small domain use a bitset, other integers a sorted array with binary search,
+ * and other values a hash set. {@link Byte}, {@link Short}, {@link Integer} and {@link Long} values are always indexed
+ * as integers, also within collections of mixed values; they match any of these types by numeric value.
+ * Checking a primitive or a boxed integer does not allocate.
+ * <p>
+ * Example:
+ * <pre>
+ * private static final AllowedValues STATUS_CODES = AllowedValues.of(200, 201, 204, 404);
+ * ...
+ * Assert.Argument.contains(status, STATUS_CODES);
+ * </pre>
+ *
+ * @author Daniel Felix Ferber
+ */
+public abstract class AllowedValues {
+	AllowedValues() {
+		// only the implementations below
+	}
+
+	/** Domains up to this size always use a bitset. */
+	private static final int SMALL_DOMAIN = 1024;
+
+	/** Set of the given values. */
+	public static AllowedValues of(Collection<?> values) {
+		if (values == null) throw new IllegalArgumentException("values");
+		final long[] numbers = new long[values.size()];
+		int i = 0;
+		for (final Object value : values) {
+			if (! isInteger(value)) return new Hashed(values);
+			numbers[i++] = ((Number) value).longValue();
+		}
+		return of(numbers);
+	}
+
+	/** Set of the given integers. */
+	public static AllowedValues of(int... values) {
+		if (values == null) throw new IllegalArgumentException("values");
+		final long[] numbers = new long[values.length];
+		for (int i = 0; i < values.length; i++) numbers[i] = values[i];
+		return of(numbers);
+	}
+
+	/** Set of the given integers. */
+	public static AllowedValues of(long... values) {
+		if (values == null) throw new IllegalArgumentException("values");
+		final long[] sorted = distinctSorted(values);
+		if (sorted.length == 0) return new Sorted(sorted);
+		final long min = sorted[0];
+		final long max = sorted[sorted.length - 1];
+		final double domain = (double) max - min + 1;
+		/* A bitset is used while it takes no more memory than the sorted array. */
+		if (domain <= Math.max(SMALL_DOMAIN, 64.0 * sorted.length)) return new Bits(sorted);
+		return new Sorted(sorted);
+	}
+
+	private static boolean isInteger(Object value) {
+		return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+	}
+
+	private static long[] distinctSorted(long[] values) {
+		final long[] sorted = Arrays.copyOf(values, values.length);
+		Arrays.sort(sorted);
+		int n = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (n == 0 || sorted[n - 1] != sorted[i]) sorted[n++] = sorted[i];
+		}
+		return Arrays.copyOf(sorted, n);
+	}
+
+	/** True if the value is allowed. */
+	public abstract boolean contains(Object value);
+
+	/** True if the value is allowed. */
+	public abstract boolean contains(long value);
+
+	/** Number of allowed values. */
+	public abstract int size();
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName().toLowerCase() + " set of " + size() + " values";
+	}
+
+	/** Any values: integers in an integer index, other values in a hash set. */
+	private static final class Hashed extends AllowedValues {
+		private final AllowedValues integers;
+		private final Set<Object> others;
+
+		Hashed(final Collection<?> values) {
+			final long[] numbers = new long[values.size()];
+			int n = 0;
+			this.others = new HashSet<Object>();
+			for (final Object value : values) {
+				if (isInteger(value)) numbers[n++] = ((Number) value).longValue();
+				else others.add(value);
+			}
+			this.integers = of(Arrays.copyOf(numbers, n));
+		}
+
+		@Override public boolean contains(final Object value) { return isInteger(value) ? integers.contains(((Number) value).longValue()) : others.contains(value); }
+		@Override public boolean contains(final long value) { return integers.contains(value); }
+		@Override public int size() { return integers.size() + others.size(); }
+	}
+
+	/** Integers, sorted for binary search. */
+	private static final class Sorted extends AllowedValues {
+		private final long[] values;
+
+		Sorted(final long[] values) {
+			this.values = values;
+		}
+
+		@Override public boolean contains(final Object value) { return isInteger(value) && contains(((Number) value).longValue()); }
+		@Override public boolean contains(final long value) { return Arrays.binarySearch(values, value) >= 0; }
+		@Override public int size() { return values.length; }
+	}
+
+	/** Integers within a small domain, one bit per value of the domain. */
+	private static final class Bits extends AllowedValues {
+		private final long min;
+		private final long max;
+		private final long[] words;
+		private final int size;
+
+		Bits(final long[] sorted) {
+			this.min = sorted[0];
+			this.max = sorted[sorted.length - 1];
+			this.words = new long[(int) ((max - min) >>> 6) + 1];
+			for (final long value : sorted) {
+				final long bit = value - min;
+				words[(int) (bit >>> 6)] |= 1L << bit;
+			}
+			this.size = sorted.length;
+		}
+
+		@Override public boolean contains(final Object value) { return isInteger(value) && contains(((Number) value).longValue()); }
+		@Override public boolean contains(final long value) {
+			if (value < min || value > max) return false;
+			final long bit = value - min;
+			return (words[(int) (bit >>> 6)] & (1L << bit)) != 0;
+		}
+		@Override public int size() { return size; }
+	}
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+/**
+ * Finds the first element of an array slice that violates a bulk check of {@link Assert}.
+ * <p>
+ * Each block is first reduced by a branch-free loop (bitwise or, min, max) that the JIT unrolls and,
+ * where it supports the reduction, vectorizes. Only a block whose reduction reveals a possible violation
+ * is scanned again element by element. Slices of at least the parallel threshold of the category
+ * (see {@link Assert#setParallelThreshold(int)}) are split across threads by {@link ParallelScan}.
+ * Sequential scans do not allocate.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class ArrayScan {
+	private ArrayScan() {
+		// utility class
+	}
+
+	private static final int BLOCK = 1024;
+
+	/*
+	 * Adding one to the exponent of an infinite or NaN value carries into the sign bit.
+	 * Or-ing the result into an accumulator reveals non-finite values by its sign.
+	 */
+	private static final long DOUBLE_EXPONENT = 0x7FF0000000000000L;
+	private static final long DOUBLE_EXPONENT_ONE = 0x0010000000000000L;
+	private static final int FLOAT_EXPONENT = 0x7F800000;
+	private static final int FLOAT_EXPONENT_ONE = 0x00800000;
+
+	static void checkSlice(final int length, final int from, final int to) {
+		if (from > to) throw new IllegalArgumentException("from(" + from + ") > to(" + to + ")");
+		if (from < 0) throw new ArrayIndexOutOfBoundsException(from);
+		if (to > length) throw new ArrayIndexOutOfBoundsException(to);
+	}
+
+	private static int blockEnd(final int start, final int to) {
+		return to - start > BLOCK ? start + BLOCK : to;
+	}
+
+	// ************************************************************************
+	// *** NEGATIVE ***********************************************************
+	// ************************************************************************
+
+	static int firstNegative(final int[] values, final int from, final int to, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return negative(values, from, to);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return negative(values, start, end); }
+		}.run(from, to);
+	}
+
+	private static int negative(final int[] values, final int from, final int to) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			int acc = 0;
+			for (int i = start; i < end; i++) acc |= values[i];
+			if (acc < 0) {
+				for (int i = start; i < end; i++) if (values[i] < 0) return i;
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	static int firstNegative(final long[] values, final int from, final int to, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return negative(values, from, to);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return negative(values, start, end); }
+		}.run(from, to);
+	}
+
+	private static int negative(final long[] values, final int from, final int to) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			long acc = 0;
+			for (int i = start; i < end; i++) acc |= values[i];
+			if (acc < 0) {
+				for (int i = start; i < end; i++) if (values[i] < 0) return i;
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	/** Same criteria as {@link Assert#nonNegative(float)}: NaN, infinite and negative values violate. */
+	static int firstNegative(final float[] values, final int from, final int to, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return negative(values, from, to);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return negative(values, start, end); }
+		}.run(from, to);
+	}
+
+	private static int negative(final float[] values, final int from, final int to) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			int acc = 0;
+			for (int i = start; i < end; i++) {
+				final int bits = Float.floatToRawIntBits(values[i]);
+				acc |= bits | ((bits & FLOAT_EXPONENT) + FLOAT_EXPONENT_ONE);
+			}
+			if (acc < 0) {
+				for (int i = start; i < end; i++) {
+					final float v = values[i];
+					if (! (v >= 0 && v <= Float.MAX_VALUE)) return i;
+				}
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	/** Same criteria as {@link Assert#nonNegative(double)}: NaN, infinite and negative values violate. */
+	static int firstNegative(final double[] values, final int from, final int to, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return negative(values, from, to);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return negative(values, start, end); }
+		}.run(from, to);
+	}
+
+	private static int negative(final double[] values, final int from, final int to) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			long acc = 0;
+			for (int i = start; i < end; i++) {
+				final long bits = Double.doubleToRawLongBits(values[i]);
+				acc |= bits | ((bits & DOUBLE_EXPONENT) + DOUBLE_EXPONENT_ONE);
+			}
+			if (acc < 0) {
+				for (int i = start; i < end; i++) {
+					final double v = values[i];
+					if (! (v >= 0 && v <= Double.MAX_VALUE)) return i;
+				}
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	// ************************************************************************
+	// *** NON FINITE *********************************************************
+	// ************************************************************************
+
+	static int firstNonFinite(final float[] values, final int from, final int to, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return nonFinite(values, from, to);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return nonFinite(values, start, end); }
+		}.run(from, to);
+	}
+
+	private static int nonFinite(final float[] values, final int from, final int to) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			int acc = 0;
+			for (int i = start; i < end; i++) acc |= (Float.floatToRawIntBits(values[i]) & FLOAT_EXPONENT) + FLOAT_EXPONENT_ONE;
+			if (acc < 0) {
+				for (int i = start; i < end; i++) if (! (Math.abs(values[i]) <= Float.MAX_VALUE)) return i;
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	static int firstNonFinite(final double[] values, final int from, final int to, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return nonFinite(values, from, to);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return nonFinite(values, start, end); }
+		}.run(from, to);
+	}
+
+	private static int nonFinite(final double[] values, final int from, final int to) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			long acc = 0;
+			for (int i = start; i < end; i++) acc |= (Double.doubleToRawLongBits(values[i]) & DOUBLE_EXPONENT) + DOUBLE_EXPONENT_ONE;
+			if (acc < 0) {
+				for (int i = start; i < end; i++) if (! (Math.abs(values[i]) <= Double.MAX_VALUE)) return i;
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	// ************************************************************************
+	// *** OUT OF RANGE *******************************************************
+	// ************************************************************************
+
+	/** First value outside <code>[min, max]</code>. */
+	static int firstOutOfRange(final int[] values, final int from, final int to, final int min, final int max, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return outOfRange(values, from, to, min, max);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return outOfRange(values, start, end, min, max); }
+		}.run(from, to);
+	}
+
+	private static int outOfRange(final int[] values, final int from, final int to, final int min, final int max) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			int lo = Integer.MAX_VALUE;
+			int hi = Integer.MIN_VALUE;
+			for (int i = start; i < end; i++) {
+				lo = Math.min(lo, values[i]);
+				hi = Math.max(hi, values[i]);
+			}
+			if (lo < min || hi > max) {
+				for (int i = start; i < end; i++) if (values[i] < min || values[i] > max) return i;
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	/** First value outside <code>[min, max]</code>. */
+	static int firstOutOfRange(final long[] values, final int from, final int to, final long min, final long max, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return outOfRange(values, from, to, min, max);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return outOfRange(values, start, end, min, max); }
+		}.run(from, to);
+	}
+
+	private static int outOfRange(final long[] values, final int from, final int to, final long min, final long max) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			long lo = Long.MAX_VALUE;
+			long hi = Long.MIN_VALUE;
+			for (int i = start; i < end; i++) {
+				lo = Math.min(lo, values[i]);
+				hi = Math.max(hi, values[i]);
+			}
+			if (lo < min || hi > max) {
+				for (int i = start; i < end; i++) if (values[i] < min || values[i] > max) return i;
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	/** First value outside <code>[min, max]</code> or NaN. */
+	static int firstOutOfRange(final float[] values, final int from, final int to, final float min, final float max, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return outOfRange(values, from, to, min, max);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return outOfRange(values, start, end, min, max); }
+		}.run(from, to);
+	}
+
+	private static int outOfRange(final float[] values, final int from, final int to, final float min, final float max) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			float lo = Float.POSITIVE_INFINITY;
+			float hi = Float.NEGATIVE_INFINITY;
+			for (int i = start; i < end; i++) {
+				lo = Math.min(lo, values[i]);
+				hi = Math.max(hi, values[i]);
+			}
+			// Math.min and Math.max propagate NaN, which fails the comparison
+			if (! (lo >= min && hi <= max)) {
+				for (int i = start; i < end; i++) if (! (values[i] >= min && values[i] <= max)) return i;
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	/** First value outside <code>[min, max]</code> or NaN. */
+	static int firstOutOfRange(final double[] values, final int from, final int to, final double min, final double max, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return outOfRange(values, from, to, min, max);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return outOfRange(values, start, end, min, max); }
+		}.run(from, to);
+	}
+
+	private static int outOfRange(final double[] values, final int from, final int to, final double min, final double max) {
+		for (int start = from; start < to; ) {
+			final int end = blockEnd(start, to);
+			double lo = Double.POSITIVE_INFINITY;
+			double hi = Double.NEGATIVE_INFINITY;
+			for (int i = start; i < end; i++) {
+				lo = Math.min(lo, values[i]);
+				hi = Math.max(hi, values[i]);
+			}
+			// Math.min and Math.max propagate NaN, which fails the comparison
+			if (! (lo >= min && hi <= max)) {
+				for (int i = start; i < end; i++) if (! (values[i] >= min && values[i] <= max)) return i;
+			}
+			start = end;
+		}
+		return -1;
+	}
+
+	// ************************************************************************
+	// *** NULL ***************************************************************
+	// ************************************************************************
+
+	static int firstNull(final Object[] values, final int from, final int to, final int parallelThreshold) {
+		checkSlice(values.length, from, to);
+		if (to - from < parallelThreshold || ParallelScan.PARALLELISM < 2) return nulls(values, from, to);
+		return new ParallelScan() {
+			@Override int scan(final int start, final int end) { return nulls(values, start, end); }
+		}.run(from, to);
+	}
+
+	private static int nulls(final Object[] values, final int from, final int to) {
+		for (int i = from; i < to; i++) if (values[i] == null) return i;
+		return -1;
+	}
+}
@@ -15,8 +15,23 @@
  */
 package org.usefultoys.exception.data;
 
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.usefultoys.exception.ExceptionEvents;
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
+import org.usefultoys.exception.StripedCounter;
 
 /**
  * A collection typical validation methods.
@@ -29,12 +44,34 @@ public abstract class Assert {
 		// cannot create instance
 	}
 
+	private final String category = categoryName(getClass());
+	/** Failed checks of this category, shared by all instances of the category. */
+	private final StripedCounter failures = ExceptionStatistics.category(category);
+
+	private static String categoryName(Class<?> type) {
+		while (type.getSuperclass() != Assert.class) type = type.getSuperclass();
+		return type.getSimpleName();
+	}
+
 	public static final Assert Argument = new Argument();
 	
 	public static class Argument extends Assert {
 		@Override protected RuntimeException createException(Object rule) { return new IllegalArgumentData(rule); }
 		@Override protected RuntimeException createException(String message) { return new IllegalArgumentData(message); }
 		@Override protected RuntimeException createException() { return new IllegalArgumentData(); }
+		@Override RuntimeException createDeferredException(Object rule) { return new Deferred(rule); }
+		@Override RuntimeException createDeferredException(String message, Message lazy, boolean trace) { return new Deferred(message, lazy, trace); }
+		@Override boolean enabled() { return ARGUMENT_ENABLED || CategorySwitch.argument(); }
+
+		private static final class Deferred extends IllegalArgumentData {
+			private static final long serialVersionUID = 1L;
+			private final Message lazy;
+			Deferred(Object rule) { super(rule); lazy = null; }
+			Deferred(String message, Message lazy, boolean trace) { super(message); this.lazy = lazy; if (trace) super.fillInStackTrace(); }
+			@Override public Throwable fillInStackTrace() { return this; }
+			@Override public String getMessage() { return lazy == null ? super.getMessage() : lazy.toString(); }
+			@Override public String toString() { return Message.toString(this, IllegalArgumentData.class); }
+		}
 	};
 
 	public static final Assert Attribute = new Attribute ();
@@ -43,17 +80,109 @@ public abstract class Assert {
 		@Override protected RuntimeException createException(Object rule) { return new IllegalAttributeData(rule); }
 		@Override protected RuntimeException createException(String message) { return new IllegalAttributeData(message); }
 		@Override protected RuntimeException createException() { return new IllegalAttributeData(); }
+		@Override RuntimeException createDeferredException(Object rule) { return new Deferred(rule); }
+		@Override RuntimeException createDeferredException(String message, Message lazy, boolean trace) { return new Deferred(message, lazy, trace); }
+		@Override boolean enabled() { return ATTRIBUTE_ENABLED || CategorySwitch.attribute(); }
+
+		private static final class Deferred extends IllegalAttributeData {
+			private static final long serialVersionUID = 1L;
+			private final Message lazy;
+			Deferred(Object rule) { super(rule); lazy = null; }
+			Deferred(String message, Message lazy, boolean trace) { super(message); this.lazy = lazy; if (trace) super.fillInStackTrace(); }
+			@Override public Throwable fillInStackTrace() { return this; }
+			@Override public String getMessage() { return lazy == null ? super.getMessage() : lazy.toString(); }
+			@Override public String toString() { return Message.toString(this, IllegalAttributeData.class); }
+		}
 	};
 
 	public static final Assert Environment = new Environment();
 
+	/** Shared {@link #Environment} instance, typed for the checks of settings (eg. <code>Assert.environment().isInt("port")</code>). */
+	public static Environment environment() {
+		return (Environment) Environment;
+	}
+
 	public static class Environment extends Assert {
 		@Override protected RuntimeException createException(Object rule) { return new IllegalEnvironmentData(rule); }
 		@Override protected RuntimeException createException(String message) { return new IllegalEnvironmentData(message); }
 		@Override protected RuntimeException createException() { return new IllegalEnvironmentData(); }
+		@Override RuntimeException createDeferredException(Object rule) { return new Deferred(rule); }
+		@Override RuntimeException createDeferredException(String message, Message lazy, boolean trace) { return new Deferred(message, lazy, trace); }
+		@Override boolean enabled() { return ENVIRONMENT_ENABLED || CategorySwitch.environment(); }
+
+		private static final class Deferred extends IllegalEnvironmentData {
+			private static final long serialVersionUID = 1L;
+			private final Message lazy;
+			Deferred(Object rule) { super(rule); lazy = null; }
+			Deferred(String message, Message lazy, boolean trace) { super(message); this.lazy = lazy; if (trace) super.fillInStackTrace(); }
+			@Override public Throwable fillInStackTrace() { return this; }
+			@Override public String getMessage() { return lazy == null ? super.getMessage() : lazy.toString(); }
+			@Override public String toString() { return Message.toString(this, IllegalEnvironmentData.class); }
+		}
+
+		/* Replaced as a whole on refresh, so each check sees one consistent snapshot. */
+		private volatile EnvironmentSnapshot snapshot = EnvironmentSnapshot.capture();
+
+		/** Environment variables and system properties that checks validate against. */
+		public final EnvironmentSnapshot getSnapshot() {
+			return snapshot;
+		}
+
+		/** Replaces the snapshot, eg. with one built for tests. */
+		public final void setSnapshot(EnvironmentSnapshot snapshot) {
+			if (snapshot == null) throw new IllegalArgumentException("snapshot");
+			this.snapshot = snapshot;
+		}
 
+		/** Captures the current environment variables and system properties, for checks that follow. */
+		public final void refresh() {
+			this.snapshot = EnvironmentSnapshot.capture();
+		}
+
+		/** Environment variable must exist. */
 		public final boolean exist(String name) throws RuntimeException {
-			if (System.getenv(name) == null) throw createException(String.format("%s must exist in environment", name));
+			if (enabled() && snapshot.getenv(name) == null) throw exception(new Message(ENVIRONMENT, name));
+			return true;
+		}
+
+		/** System property must exist. */
+		public final boolean existProperty(String name) throws RuntimeException {
+			if (enabled() && snapshot.getProperty(name) == null) throw exception(new Message(PROPERTY, name));
+			return true;
+		}
+
+		/** Setting (system property, or else environment variable) must be an int. */
+		public final boolean isInt(String name) throws RuntimeException {
+			if (! enabled()) return true;
+			final EnvironmentSnapshot current = snapshot;
+			if (current.getInt(name) == null) throw exception(new Message(SETTING_TYPE, name, "an int", current.get(name)));
+			return true;
+		}
+
+		/** Setting (system property, or else environment variable) must be a long. */
+		public final boolean isLong(String name) throws RuntimeException {
+			if (! enabled()) return true;
+			final EnvironmentSnapshot current = snapshot;
+			if (current.getLong(name) == null) throw exception(new Message(SETTING_TYPE, name, "a long", current.get(name)));
+			return true;
+		}
+
+		/** Setting (system property, or else environment variable) must be <code>true</code> or <code>false</code>. */
+		public final boolean isBoolean(String name) throws RuntimeException {
+			if (! enabled()) return true;
+			final EnvironmentSnapshot current = snapshot;
+			if (current.getBoolean(name) == null) throw exception(new Message(SETTING_TYPE, name, "a boolean", current.get(name)));
+			return true;
+		}
+
+		/** Setting (system property, or else environment variable) must be a long within a range, including the limits. */
+		public final boolean rangeInclusive(String name, long min, long max) throws RuntimeException {
+			if (! enabled()) return true;
+			final EnvironmentSnapshot current = snapshot;
+			final Long value = current.getLong(name);
+			if (value == null || value.longValue() < min || value.longValue() > max) {
+				throw exception(new Message(SETTING_RANGE, name, "[" + min + "-" + max + "]", current.get(name)));
+			}
 			return true;
 		}
 	};
@@ -64,6 +193,19 @@ public abstract class Assert {
 		@Override protected RuntimeException createException(Object rule) { return new IllegalPreCondition(rule); }
 		@Override protected RuntimeException createException(String message) { return new IllegalPreCondition(message); }
 		@Override protected RuntimeException createException() { return new IllegalPreCondition(); }
+		@Override RuntimeException createDeferredException(Object rule) { return new Deferred(rule); }
+		@Override RuntimeException createDeferredException(String message, Message lazy, boolean trace) { return new Deferred(message, lazy, trace); }
+		@Override boolean enabled() { return PRECONDITION_ENABLED || CategorySwitch.precondition(); }
+
+		private static final class Deferred extends IllegalPreCondition {
+			private static final long serialVersionUID = 1L;
+			private final Message lazy;
+			Deferred(Object rule) { super(rule); lazy = null; }
+			Deferred(String message, Message lazy, boolean trace) { super(message); this.lazy = lazy; if (trace) super.fillInStackTrace(); }
+			@Override public Throwable fillInStackTrace() { return this; }
+			@Override public String getMessage() { return lazy == null ? super.getMessage() : lazy.toString(); }
+			@Override public String toString() { return Message.toString(this, IllegalPreCondition.class); }
+		}
 	};
 
 	public static final Assert Poscondition = new Poscondition();
@@ -72,6 +214,19 @@ public abstract class Assert {
 		@Override protected RuntimeException createException(Object rule) { return new IllegalPosCondition(rule); }
 		@Override protected RuntimeException createException(String message) { return new IllegalPosCondition(message); }
 		@Override protected RuntimeException createException() { return new IllegalPosCondition(); }
+		@Override RuntimeException createDeferredException(Object rule) { return new Deferred(rule); }
+		@Override RuntimeException createDeferredException(String message, Message lazy, boolean trace) { return new Deferred(message, lazy, trace); }
+		@Override boolean enabled() { return POSCONDITION_ENABLED || CategorySwitch.poscondition(); }
+
+		private static final class Deferred extends IllegalPosCondition {
+			private static final long serialVersionUID = 1L;
+			private final Message lazy;
+			Deferred(Object rule) { super(rule); lazy = null; }
+			Deferred(String message, Message lazy, boolean trace) { super(message); this.lazy = lazy; if (trace) super.fillInStackTrace(); }
+			@Override public Throwable fillInStackTrace() { return this; }
+			@Override public String getMessage() { return lazy == null ? super.getMessage() : lazy.toString(); }
+			@Override public String toString() { return Message.toString(this, IllegalPosCondition.class); }
+		}
 	};
 
 	public static final Assert Invariant = new Invariant();
@@ -80,82 +235,528 @@ public abstract class Assert {
 		@Override protected RuntimeException createException(Object rule) { return new IllegalInvariant(rule); }
 		@Override protected RuntimeException createException(String message) { return new IllegalInvariant(message); }
 		@Override protected RuntimeException createException() { return new IllegalInvariant(); }
+		@Override RuntimeException createDeferredException(Object rule) { return new Deferred(rule); }
+		@Override RuntimeException createDeferredException(String message, Message lazy, boolean trace) { return new Deferred(message, lazy, trace); }
+		@Override boolean enabled() { return INVARIANT_ENABLED || CategorySwitch.invariant(); }
+
+		private static final class Deferred extends IllegalInvariant {
+			private static final long serialVersionUID = 1L;
+			private final Message lazy;
+			Deferred(Object rule) { super(rule); lazy = null; }
+			Deferred(String message, Message lazy, boolean trace) { super(message); this.lazy = lazy; if (trace) super.fillInStackTrace(); }
+			@Override public Throwable fillInStackTrace() { return this; }
+			@Override public String getMessage() { return lazy == null ? super.getMessage() : lazy.toString(); }
+			@Override public String toString() { return Message.toString(this, IllegalInvariant.class); }
+		}
 	};
 
 	protected abstract RuntimeException createException();
 	protected abstract RuntimeException createException(String message);
 	protected abstract RuntimeException createException(Object rule);
 
+	/*
+	 * Deferred exceptions are private subclasses of the category exception, so catch clauses for the category exception
+	 * still catch them. A single class cannot extend all category exceptions, so each category declares its own, with
+	 * nothing but these two constructors and the three overrides. They fill in the stack trace only when constructed
+	 * with trace set, never when fillInStackTrace() is called later, so shared exceptions cannot be changed by it.
+	 * A lazy Message is rendered on the first getMessage(), so exceptions for a Message are always deferred, with trace
+	 * set in full and sampled modes. Other exceptions with stack trace are of the category exception class.
+	 */
+	abstract RuntimeException createDeferredException(Object rule);
+	abstract RuntimeException createDeferredException(String message, Message lazy, boolean trace);
+
+	// ************************************************************************
+	// *** ENABLED CATEGORIES *************************************************
+	// ************************************************************************
+
+	/*
+	 * Read once when the class is initialized. Being static final, the JIT treats them as constants: checks of an
+	 * enabled category called through the shared instances (eg. Assert.Invariant.check(...)) never test whether they
+	 * are enabled, and checks of a disabled category reduce to nothing, as the runtime switch is constant too.
+	 */
+	/** False if disabled by <code>-Dorg.usefultoys.exception.data.Assert.Argument.enabled=false</code>. */
+	public static final boolean ARGUMENT_ENABLED = enabledProperty("Argument");
+	/** False if disabled by <code>-Dorg.usefultoys.exception.data.Assert.Attribute.enabled=false</code>. */
+	public static final boolean ATTRIBUTE_ENABLED = enabledProperty("Attribute");
+	/** False if disabled by <code>-Dorg.usefultoys.exception.data.Assert.Environment.enabled=false</code>. */
+	public static final boolean ENVIRONMENT_ENABLED = enabledProperty("Environment");
+	/** False if disabled by <code>-Dorg.usefultoys.exception.data.Assert.Precondition.enabled=false</code>. */
+	public static final boolean PRECONDITION_ENABLED = enabledProperty("Precondition");
+	/** False if disabled by <code>-Dorg.usefultoys.exception.data.Assert.Poscondition.enabled=false</code>. */
+	public static final boolean POSCONDITION_ENABLED = enabledProperty("Poscondition");
+	/** False if disabled by <code>-Dorg.usefultoys.exception.data.Assert.Invariant.enabled=false</code>. */
+	public static final boolean INVARIANT_ENABLED = enabledProperty("Invariant");
+
+	private static boolean enabledProperty(String category) {
+		try {
+			return ! "false".equalsIgnoreCase(System.getProperty(Assert.class.getName() + "." + category + ".enabled"));
+		} catch (SecurityException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Checks of a disabled category always succeed and never raise an exception.
+	 * The arguments are still evaluated by the caller. To also skip an expensive condition, guard the call:
+	 * <pre>
+	 * if (Assert.Invariant.isEnabled()) Assert.Invariant.check(tree.isBalanced());
+	 * </pre>
+	 * Test methods (eg. {@link #testRange(int, int, int)}) and {@link #failure(Violation)} are not affected.
+	 */
+	abstract boolean enabled();
+
+	/** True if checks of this category raise exceptions: enabled at startup or switched on at runtime. */
+	public final boolean isEnabled() {
+		return enabled();
+	}
+
+	/**
+	 * Switches on checks of a category that was disabled at startup, eg. to diagnose a live system.
+	 * Switching off again restores the startup setting. A category enabled at startup cannot be disabled at runtime,
+	 * because its checks are compiled in without reading this switch.
+	 * Applies to all instances of the category, from their next check on. Switching is slow, as the JVM recompiles
+	 * the checks, but checks of a disabled category cost nothing.
+	 * Requires Java 9 or later, see {@link #isSwitchable()}.
+	 *
+	 * @throws IllegalStateException before Java 9
+	 */
+	public final void setSwitchedOn(boolean on) {
+		CategorySwitch.set(category, on);
+	}
+
+	/** True if {@link #setSwitchedOn(boolean)} switched on this category. */
+	public final boolean isSwitchedOn() {
+		return CategorySwitch.isOn(category);
+	}
+
+	/**
+	 * True if categories can be switched on at runtime, on Java 9 and later. Before Java 9, a switch read on every
+	 * check would slow down all checks of disabled categories, so categories keep the setting from startup.
+	 */
+	public static boolean isSwitchable() {
+		return CategorySwitch.isSupported();
+	}
+
+	/** Shared instance of a category by its simple name (eg. <code>"Invariant"</code>), or null if unknown. */
+	public static Assert category(String name) {
+		if ("Argument".equals(name)) return Argument;
+		if ("Attribute".equals(name)) return Attribute;
+		if ("Environment".equals(name)) return Environment;
+		if ("Precondition".equals(name)) return Precondition;
+		if ("Poscondition".equals(name)) return Poscondition;
+		if ("Invariant".equals(name)) return Invariant;
+		return null;
+	}
+
+	/** Name under which {@link #registerMBean()} publishes the category switches. */
+	public static final String OBJECT_NAME = "org.usefultoys.exception:type=Assert";
+
+	/** Publishes the category switches on the platform MBean server as {@value #OBJECT_NAME}. Does nothing if already published. */
+	public static void registerMBean() {
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(OBJECT_NAME);
+			if (! server.isRegistered(name)) server.registerMBean(new MXBean(), name);
+		} catch (final JMException e) {
+			throw new IllegalStateException("Failed to register " + OBJECT_NAME, e);
+		}
+	}
+
+	/** Removes the category switches from the platform MBean server. */
+	public static void unregisterMBean() {
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) server.unregisterMBean(name);
+		} catch (final JMException e) {
+			throw new IllegalStateException("Failed to unregister " + OBJECT_NAME, e);
+		}
+	}
+
+	private static final class MXBean implements AssertMXBean {
+		private static final String[] NAMES = { "Argument", "Attribute", "Environment", "Precondition", "Poscondition", "Invariant" };
+
+		@Override public Map<String, Boolean> getEnabledCategories() {
+			final Map<String, Boolean> result = new TreeMap<String, Boolean>();
+			for (final String name : NAMES) result.put(name, Boolean.valueOf(category(name).isEnabled()));
+			return result;
+		}
+
+		@Override public void switchOn(String category) { existing(category).setSwitchedOn(true); }
+		@Override public void switchOff(String category) { existing(category).setSwitchedOn(false); }
+
+		private static Assert existing(String name) {
+			final Assert category = category(name);
+			if (category == null) throw new IllegalArgumentException("Unknown category: " + name);
+			return category;
+		}
+	}
+
+	// ************************************************************************
+	// *** STACK TRACE ********************************************************
+	// ************************************************************************
+
+	/**
+	 * How exceptions raised by failed checks capture their stack trace.
+	 * Exceptions are always instances of the category exception class.
+	 */
+	public enum TraceMode {
+		/** Fill in the complete stack trace (default). Template and supplied messages are rendered only if requested. */
+		FULL,
+		/**
+		 * Fill in the stack trace only for a sample of failures, as configured by {@link StackTraceSampler}.
+		 * Failures are sampled by category, and also by rule for checks with a rule.
+		 */
+		SAMPLED,
+		/**
+		 * Do not fill in the stack trace. Much cheaper for checks that fail often, like validation of client input.
+		 */
+		NONE,
+		/**
+		 * Like {@link #NONE}, but checks with a rule (eg. {@link Assert#check(Object, boolean)}) rethrow
+		 * one shared exception per rule instead of creating a new exception on each failure.
+		 * Intended for rules that fully identify the failure, like enum constants.
+		 * A shared exception that got a cause (<code>initCause</code>) or suppressed exceptions
+		 * (<code>addSuppressed</code>, try-with-resources) is replaced by a new one on the next failure,
+		 * so that it neither grows nor carries data from one failure to the next.
+		 * Shared exceptions still must not be modified by <code>setStackTrace</code>.
+		 */
+		SHARED
+	}
+
+	/** Maximum number of rules with a shared exception per instance. Further rules get a new stackless exception on each failure. */
+	public static final int SHARED_EXCEPTION_LIMIT = 256;
+
+	private volatile TraceMode traceMode = TraceMode.FULL;
+	private final ConcurrentMap<Object, RuntimeException> sharedExceptions = new ConcurrentHashMap<Object, RuntimeException>();
+
+	/** How exceptions raised by this category capture their stack trace. */
+	public final TraceMode getTraceMode() {
+		return traceMode;
+	}
+
+	/**
+	 * Sets how exceptions raised by this category capture their stack trace.
+	 * Applies to all callers of the shared instance (eg. {@link #Argument}).
+	 * For a private setting, create a new instance (eg. <code>new Assert.Argument()</code>).
+	 */
+	public final void setTraceMode(TraceMode mode) {
+		if (mode == null) throw new IllegalArgumentException("mode");
+		this.traceMode = mode;
+		if (mode != TraceMode.SHARED) sharedExceptions.clear();
+	}
+
+	final RuntimeException exception() {
+		failures.increment();
+		switch (traceMode) {
+			case FULL: return ExceptionEvents.created(createException(), category, null);
+			case SAMPLED:
+				final long sample = StackTraceSampler.sample(category);
+				if (sample == StackTraceSampler.OMIT) return ExceptionEvents.created(StackTraceSampler.omitted(createDeferredException(null, null, false), category), category, null);
+				return ExceptionEvents.created(StackTraceSampler.tag(createException(), sample), category, null);
+			default: return ExceptionEvents.created(createDeferredException(null, null, false), category, null);
+		}
+	}
+
+	final RuntimeException exception(String message) {
+		failures.increment();
+		switch (traceMode) {
+			case FULL: return ExceptionEvents.created(createException(message), category, message);
+			case SAMPLED:
+				final long sample = StackTraceSampler.sample(category);
+				if (sample == StackTraceSampler.OMIT) return ExceptionEvents.created(StackTraceSampler.omitted(createDeferredException(message, null, false), category), category, message);
+				return ExceptionEvents.created(StackTraceSampler.tag(createException(message), sample), category, message);
+			default: return ExceptionEvents.created(createDeferredException(message, null, false), category, message);
+		}
+	}
+
+	final RuntimeException exception(Object rule) {
+		failures.increment();
+		switch (traceMode) {
+			case FULL: return ExceptionEvents.created(createException(rule), category, rule);
+			case SAMPLED:
+				final Object site = Arrays.asList(category, rule);
+				final long sample = StackTraceSampler.sample(site);
+				if (sample == StackTraceSampler.OMIT) return ExceptionEvents.created(StackTraceSampler.omitted(createDeferredException(rule), site), category, rule);
+				return ExceptionEvents.created(StackTraceSampler.tag(createException(rule), sample), category, rule);
+			case SHARED: return sharedException(rule);
+			default: return ExceptionEvents.created(createDeferredException(rule), category, rule);
+		}
+	}
+
+	final RuntimeException exception(Message message) {
+		failures.increment();
+		switch (traceMode) {
+			case FULL: return ExceptionEvents.created(createDeferredException(null, message, true), category, message.getPattern());
+			case SAMPLED:
+				final long sample = StackTraceSampler.sample(category);
+				if (sample == StackTraceSampler.OMIT) return ExceptionEvents.created(StackTraceSampler.omitted(createDeferredException(null, message, false), category), category, message.getPattern());
+				return ExceptionEvents.created(StackTraceSampler.tag(createDeferredException(null, message, true), sample), category, message.getPattern());
+			default: return ExceptionEvents.created(createDeferredException(null, message, false), category, message.getPattern());
+		}
+	}
+
+	/**
+	 * Exception for a check verified away from its caller (see {@link AsyncVerifier}).
+	 * Carries the stack trace captured at the call site, if any, instead of the current one.
+	 */
+	final RuntimeException detachedException(Object rule, StackTraceElement[] callSite) {
+		failures.increment();
+		final RuntimeException exception;
+		if (callSite == null) exception = rule == null ? createDeferredException(null, null, false) : createDeferredException(rule);
+		else exception = rule == null ? createException() : createException(rule);
+		if (callSite != null) exception.setStackTrace(callSite);
+		return ExceptionEvents.created(exception, category, rule);
+	}
+
+	/** Shared exception for the rule. Reports an event only when an exception is created, not when one is rethrown. */
+	private RuntimeException sharedException(Object rule) {
+		if (rule == null) return ExceptionEvents.created(createDeferredException(rule), category, rule);
+		RuntimeException exception = sharedExceptions.get(rule);
+		if (exception != null) {
+			if (exception.getCause() == null && Suppression.isEmpty(exception)) return exception;
+			final RuntimeException replacement = createDeferredException(rule);
+			sharedExceptions.replace(rule, exception, replacement);
+			return ExceptionEvents.created(replacement, category, rule);
+		}
+		exception = createDeferredException(rule);
+		if (sharedExceptions.size() >= SHARED_EXCEPTION_LIMIT) return ExceptionEvents.created(exception, category, rule);
+		final RuntimeException existing = sharedExceptions.putIfAbsent(rule, exception);
+		return existing == null ? ExceptionEvents.created(exception, category, rule) : existing;
+	}
+
+	// ************************************************************************
+	// *** MESSAGES ***********************************************************
+	// ************************************************************************
+
+	static final MessageTemplate EQUAL = MessageTemplate.compile("{} must be equal to {}");
+	static final MessageTemplate RANGE = MessageTemplate.compile("{} must be in range ({}-{}), excluding limits");
+	static final MessageTemplate RANGE_INCLUSIVE = MessageTemplate.compile("{} must be in range [{}-{}]");
+	static final MessageTemplate INDEX = MessageTemplate.compile("{} must be in range [0-{}]");
+	static final MessageTemplate CONTAINS = MessageTemplate.compile("collection must contain {}");
+	static final MessageTemplate ALLOWED = MessageTemplate.compile("{} must be an allowed value");
+	static final MessageTemplate NON_NEGATIVE = MessageTemplate.compile("{} must not be negative");
+	static final MessageTemplate POSITIVE = MessageTemplate.compile("{} must be positive");
+	static final MessageTemplate ELEMENT_NEGATIVE = MessageTemplate.compile("{} at index {} must not be negative");
+	static final MessageTemplate ELEMENT_FINITE = MessageTemplate.compile("{} at index {} must be finite");
+	static final MessageTemplate ELEMENT_RANGE = MessageTemplate.compile("{} at index {} must be in range {}");
+	static final MessageTemplate ELEMENT_NULL = MessageTemplate.compile("element at index {} must not be null");
+	static final MessageTemplate ELEMENT_MATCH = MessageTemplate.compile("{} at index {} must satisfy condition");
+	static final MessageTemplate ELEMENT_UNIQUE = MessageTemplate.compile("{} at index {} must be unique");
+	static final MessageTemplate FINITE = MessageTemplate.compile("{} must be finite");
+	static final MessageTemplate ENVIRONMENT = MessageTemplate.compile("{} must exist in environment");
+	static final MessageTemplate PROPERTY = MessageTemplate.compile("{} must exist in system properties");
+	static final MessageTemplate SETTING_TYPE = MessageTemplate.compile("{} must be {}, was {}");
+	static final MessageTemplate SETTING_RANGE = MessageTemplate.compile("{} must be in range {}, was {}");
+
 	// ************************************************************************
 	// *** CUSTOM *************************************************************
 	// ************************************************************************
 	
 	/** A custom condition must be satisfied. */
 	public final boolean check(boolean condition) throws RuntimeException {
-		if (! condition) throw createException();
+		if (enabled() && ! condition) throw exception();
 		return true;
 	}
 
 	/** A custom condition must be satisfied. */
 	public final boolean check(Object rule, boolean expression) throws RuntimeException {
-		if (! expression) throw createException(rule);
+		if (enabled() && ! expression) throw exception(rule);
+		return true;
+	}
+
+	/** A custom condition must be satisfied. The message is rendered only if the check fails. */
+	public final boolean check(boolean condition, MessageTemplate message, long a) throws RuntimeException {
+		if (enabled() && ! condition) throw exception(new Message(message, a));
+		return true;
+	}
+
+	/** A custom condition must be satisfied. The message is rendered only if the check fails. */
+	public final boolean check(boolean condition, MessageTemplate message, long a, long b) throws RuntimeException {
+		if (enabled() && ! condition) throw exception(new Message(message, a, b));
+		return true;
+	}
+
+	/** A custom condition must be satisfied. The message is rendered only if the check fails. */
+	public final boolean check(boolean condition, MessageTemplate message, long a, long b, long c) throws RuntimeException {
+		if (enabled() && ! condition) throw exception(new Message(message, a, b, c));
+		return true;
+	}
+
+	/** A custom condition must be satisfied. The message is rendered only if the check fails. */
+	public final boolean check(boolean condition, MessageTemplate message, double a) throws RuntimeException {
+		if (enabled() && ! condition) throw exception(new Message(message, a));
+		return true;
+	}
+
+	/** A custom condition must be satisfied. The message is rendered only if the check fails. */
+	public final boolean check(boolean condition, MessageTemplate message, Object a) throws RuntimeException {
+		if (enabled() && ! condition) throw exception(new Message(message, a));
+		return true;
+	}
+
+	/** A custom condition must be satisfied. The message is rendered only if the check fails. */
+	public final boolean check(boolean condition, MessageTemplate message, Object a, Object b) throws RuntimeException {
+		if (enabled() && ! condition) throw exception(new Message(message, a, b));
+		return true;
+	}
+
+	/** A custom condition must be satisfied. The message is rendered only if the check fails. */
+	public final boolean check(boolean condition, MessageTemplate message, Object a, Object b, Object c) throws RuntimeException {
+		if (enabled() && ! condition) throw exception(new Message(message, a, b, c));
+		return true;
+	}
+
+	/**
+	 * A custom condition must be satisfied. The supplier is called only if the check fails; without stack trace
+	 * (see {@link TraceMode}), only if the exception message is requested.
+	 */
+	public final boolean check(boolean condition, MessageSupplier message) throws RuntimeException {
+		if (enabled() && ! condition) throw exception(new Message(message));
 		return true;
 	}
 
 	/** All custom conditions must be satisfied. */
 	public final boolean checkAll(boolean ... conditions) throws RuntimeException {
+		if (! enabled()) return true;
 		for (boolean b : conditions) {
-			if (!b) throw createException();
+			if (!b) throw exception();
 		}
 		return true;
 	}
 
 	/** All custom conditions must be satisfied. */
 	public final boolean checkAll(Object rule, boolean ... conditions) throws RuntimeException {
+		if (! enabled()) return true;
 		for (boolean b : conditions) {
-			if (!b) throw createException(rule);
+			if (!b) throw exception(rule);
 		}
 		return true;
 	}
 
+	/** All custom conditions must be satisfied. Does not allocate a varargs array. */
+	public final boolean checkAll(boolean a, boolean b) throws RuntimeException {
+		if (enabled() && (!a || !b)) throw exception();
+		return true;
+	}
+
+	/** All custom conditions must be satisfied. Does not allocate a varargs array. */
+	public final boolean checkAll(boolean a, boolean b, boolean c) throws RuntimeException {
+		if (enabled() && (!a || !b || !c)) throw exception();
+		return true;
+	}
+
+	/** All custom conditions must be satisfied. Does not allocate a varargs array. */
+	public final boolean checkAll(boolean a, boolean b, boolean c, boolean d) throws RuntimeException {
+		if (enabled() && (!a || !b || !c || !d)) throw exception();
+		return true;
+	}
+
+	/** All custom conditions must be satisfied. Does not allocate a varargs array. */
+	public final boolean checkAll(boolean a, boolean b, boolean c, boolean d, boolean e) throws RuntimeException {
+		if (enabled() && (!a || !b || !c || !d || !e)) throw exception();
+		return true;
+	}
+
+	/** All custom conditions must be satisfied. Does not allocate a varargs array. */
+	public final boolean checkAll(Object rule, boolean a, boolean b) throws RuntimeException {
+		if (enabled() && (!a || !b)) throw exception(rule);
+		return true;
+	}
+
+	/** All custom conditions must be satisfied. Does not allocate a varargs array. */
+	public final boolean checkAll(Object rule, boolean a, boolean b, boolean c) throws RuntimeException {
+		if (enabled() && (!a || !b || !c)) throw exception(rule);
+		return true;
+	}
+
+	/** All custom conditions must be satisfied. Does not allocate a varargs array. */
+	public final boolean checkAll(Object rule, boolean a, boolean b, boolean c, boolean d) throws RuntimeException {
+		if (enabled() && (!a || !b || !c || !d)) throw exception(rule);
+		return true;
+	}
+
+	/** All custom conditions must be satisfied. Does not allocate a varargs array. */
+	public final boolean checkAll(Object rule, boolean a, boolean b, boolean c, boolean d, boolean e) throws RuntimeException {
+		if (enabled() && (!a || !b || !c || !d || !e)) throw exception(rule);
+		return true;
+	}
+
 	// ************************************************************************
 	// *** NON NULL ***********************************************************
 	// ************************************************************************
 
 	/** Argument(s) must not be <code>null</code>. */
 	public final <T> boolean notNull(T argument) throws RuntimeException {
-		if (argument == null) throw createException("null");
+		if (enabled() && argument == null) throw exception("null");
 		return true;
 	}
 
 	/** Argument(s) must not be <code>null</code>. */
 	public final boolean notNull(Object ... arguments) throws RuntimeException {
+		if (! enabled()) return true;
 		for (Object b : arguments) {
-			if (b == null) throw createException("null");
+			if (b == null) throw exception("null");
 		}
 		return true;
 	}
 
+	/** Arguments must not be <code>null</code>. Does not allocate a varargs array. */
+	public final boolean notNull(Object a, Object b) throws RuntimeException {
+		if (enabled() && (a == null || b == null)) throw exception("null");
+		return true;
+	}
+
+	/** Arguments must not be <code>null</code>. Does not allocate a varargs array. */
+	public final boolean notNull(Object a, Object b, Object c) throws RuntimeException {
+		if (enabled() && (a == null || b == null || c == null)) throw exception("null");
+		return true;
+	}
+
+	/** Arguments must not be <code>null</code>. Does not allocate a varargs array. */
+	public final boolean notNull(Object a, Object b, Object c, Object d) throws RuntimeException {
+		if (enabled() && (a == null || b == null || c == null || d == null)) throw exception("null");
+		return true;
+	}
+
+	/** Arguments must not be <code>null</code>. Does not allocate a varargs array. */
+	public final boolean notNull(Object a, Object b, Object c, Object d, Object e) throws RuntimeException {
+		if (enabled() && (a == null || b == null || c == null || d == null || e == null)) throw exception("null");
+		return true;
+	}
+
 	// ************************************************************************
 	// *** EQUAL **************************************************************
 	// ************************************************************************
 
 	/** Given value must be equal to the expected value. */
 	public final boolean equal(int value, int expected) throws RuntimeException {
-		if (value != expected) throw createException(String.format("%d must be equal to %d]", value, expected));
+		if (enabled() && value != expected) throw exception(new Message(EQUAL, value, expected));
 		return true;
 	}
 
 	/** Given value must be equal to the expected value. */
 	public final boolean equal(long value, long expected) throws RuntimeException {
-		if (value != expected) throw createException(String.format("%d must be equal to %d]", value, expected));
+		if (enabled() && value != expected) throw exception(new Message(EQUAL, value, expected));
+		return true;
+	}
+
+	/** Given value must be equal to the expected value. NaN is never equal. */
+	public final boolean equal(float value, float expected) throws RuntimeException {
+		if (enabled() && value != expected) throw exception(new Message(EQUAL, value, expected));
+		return true;
+	}
+
+	/** Given value must be equal to the expected value. NaN is never equal. */
+	public final boolean equal(double value, double expected) throws RuntimeException {
+		if (enabled() && value != expected) throw exception(new Message(EQUAL, value, expected));
 		return true;
 	}
 
 	/** Given value must be equal to the expected value. */
 	public final <T> boolean equal(T value, T expected) throws RuntimeException {
 		if (value == expected) return true;
-		if (value != expected && (value == null || ! value.equals(expected))) throw createException(String.format("%d must be equal to %d]", Assert.nullToStr(value), Assert.nullToStr(expected)));
+		if (enabled() && (value != expected && (value == null || ! value.equals(expected)))) throw exception(new Message(EQUAL, value, expected));
 		return true;
 	}
 
@@ -163,22 +764,64 @@ public abstract class Assert {
 	// *** RANGE **************************************************************
 	// ************************************************************************
 
-	/** Value must be within a range. */
+	/*
+	 * Primitive ranges exclude the limits, while rangeInclusive and the Comparable range include them.
+	 * Byte, short and char values widen to the int overloads without boxing.
+	 * NaN is never within a range.
+	 */
+
+	/** Value must be within a range, excluding the limits. */
 	public final boolean range(int value, int min, int max) throws RuntimeException {
-		if (value <= min || value >= max ) throw createException(String.format("%d must be in range [%d-%d]", value, min, max));
+		if (enabled() && (value <= min || value >= max )) throw exception(new Message(RANGE, value, min, max));
 		return true;
 	}
 
-	/** Value must be within a range. */
+	/** Value must be within a range, excluding the limits. */
 	public final boolean range(long value, long min, long max) throws RuntimeException {
-		if (value <= min || value >= max ) throw createException(String.format("%d must be in range [%d-%d]", value, min, max));
+		if (enabled() && (value <= min || value >= max )) throw exception(new Message(RANGE, value, min, max));
+		return true;
+	}
+
+	/** Value must be within a range, excluding the limits. */
+	public final boolean range(float value, float min, float max) throws RuntimeException {
+		if (enabled() && ! (value > min && value < max)) throw exception(new Message(RANGE, value, min, max));
+		return true;
+	}
+
+	/** Value must be within a range, excluding the limits. */
+	public final boolean range(double value, double min, double max) throws RuntimeException {
+		if (enabled() && ! (value > min && value < max)) throw exception(new Message(RANGE, value, min, max));
+		return true;
+	}
+
+	/** Value must be within a range, including the limits. */
+	public final boolean rangeInclusive(int value, int min, int max) throws RuntimeException {
+		if (enabled() && (value < min || value > max)) throw exception(new Message(RANGE_INCLUSIVE, value, min, max));
+		return true;
+	}
+
+	/** Value must be within a range, including the limits. */
+	public final boolean rangeInclusive(long value, long min, long max) throws RuntimeException {
+		if (enabled() && (value < min || value > max)) throw exception(new Message(RANGE_INCLUSIVE, value, min, max));
+		return true;
+	}
+
+	/** Value must be within a range, including the limits. */
+	public final boolean rangeInclusive(float value, float min, float max) throws RuntimeException {
+		if (enabled() && ! (value >= min && value <= max)) throw exception(new Message(RANGE_INCLUSIVE, value, min, max));
+		return true;
+	}
+
+	/** Value must be within a range, including the limits. */
+	public final boolean rangeInclusive(double value, double min, double max) throws RuntimeException {
+		if (enabled() && ! (value >= min && value <= max)) throw exception(new Message(RANGE_INCLUSIVE, value, min, max));
 		return true;
 	}
 
-	/** Value must be within a range. */
+	/** Value must be within a range, including the limits. */
 	public final <T extends Comparable<T>> boolean range(T value, T min, T max) throws RuntimeException {
-		if (value == null) throw createException(String.format("value must not be null", value, min, max));
-		if (value.compareTo(min) < 0 || value.compareTo(max) > 0 ) throw createException(String.format("%s must be in range [%s-%s]", value.toString(), min.toString(), max.toString()));
+		if (enabled() && value == null) throw exception("value must not be null");
+		if (enabled() && (value.compareTo(min) < 0 || value.compareTo(max) > 0 )) throw exception(new Message(RANGE_INCLUSIVE, value, min, max));
 		return true;
 	}
 
@@ -189,42 +832,253 @@ public abstract class Assert {
 
 	/** Value must be an index of given array. */
 	public final boolean range(int value, int array[]) throws RuntimeException {
-		if (value < 0 || value >= array.length) throw createException(String.format("%d must be in range [0-%d]", value, 0, array.length-1));
+		if (enabled() && (value < 0 || value >= array.length)) throw exception(new Message(INDEX, value, array.length - 1));
 		return true;
 	}
 
 	/** Value must be an index of given array. */
 	public final boolean range(int value, long array[]) throws RuntimeException {
-		if (value < 0 || value >= array.length) throw createException(String.format("%d must be in range [0-%d]", value, 0, array.length-1));
+		if (enabled() && (value < 0 || value >= array.length)) throw exception(new Message(INDEX, value, array.length - 1));
 		return true;
 	}
 
 	/** Value must be an index of given array. */
 	public final boolean range(int value, boolean array[]) throws RuntimeException {
-		if (value < 0 || value >= array.length) throw createException(String.format("%d must be in range [0-%d]", value, 0, array.length-1));
+		if (enabled() && (value < 0 || value >= array.length)) throw exception(new Message(INDEX, value, array.length - 1));
 		return true;
 	}
 
 	/** Value must be an index of given array. */
 	public final boolean range(int value, float array[]) throws RuntimeException {
-		if (value < 0 || value >= array.length) throw createException(String.format("%d must be in range [0-%d]", value, 0, array.length-1));
+		if (enabled() && (value < 0 || value >= array.length)) throw exception(new Message(INDEX, value, array.length - 1));
 		return true;
 	}
 
 	/** Value must be an index of given array. */
 	public final boolean range(int value, double array[]) throws RuntimeException {
-		if (value < 0 || value >= array.length) throw createException(String.format("%d must be in range [0-%d]", value, 0, array.length-1));
+		if (enabled() && (value < 0 || value >= array.length)) throw exception(new Message(INDEX, value, array.length - 1));
 		return true;
 	}
 
 	/** Value must be an index of given array. */
 	public final boolean range(int value, Object array[]) throws RuntimeException {
-		if (value < 0 || value >= array.length) throw createException(String.format("%d must be in range [0-%d]", value, 0, array.length-1));
+		if (enabled() && (value < 0 || value >= array.length)) throw exception(new Message(INDEX, value, array.length - 1));
 		return true;
 	}
 
 	public final boolean range(int value, List<?> list) throws RuntimeException {
-		if (value < 0 || value >= list.size()) throw createException(String.format("%d must be in range [0-%d]", value, 0, list.size()-1));
+		if (enabled() && (value < 0 || value >= list.size())) throw exception(new Message(INDEX, value, list.size() - 1));
+		return true;
+	}
+
+	// ************************************************************************
+	// *** ARRAY CONTENT ******************************************************
+	// ************************************************************************
+
+	/*
+	 * Bulk checks over whole arrays or slices. They report the first violating element and its index.
+	 * See ArrayScan for how the loops are kept vectorizable, and when large arrays are split across threads.
+	 */
+
+	/** Value of {@link #setParallelThreshold(int)} that scans all bulk checks on the calling thread (default). */
+	public static final int SEQUENTIAL = Integer.MAX_VALUE;
+
+	private volatile int parallelThreshold = SEQUENTIAL;
+
+	/** Minimal number of elements for a bulk check to be split across threads. */
+	public final int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Splits bulk checks (eg. {@link #allNonNegative(int[])}, {@link #allUnique(Iterable)}) of at least the given
+	 * number of elements across threads, with the same result as a sequential scan. The calling thread takes part;
+	 * the other threads are daemon threads of a pool shared by all categories, sized by the available processors and
+	 * created on the first parallel scan. Off by default ({@link #SEQUENTIAL}), and always off on a single processor.
+	 * Hand-off pays off from about a million primitive elements, or some ten thousand collection elements.
+	 * Applies to all callers of the shared instance (eg. {@link #Argument}).
+	 */
+	public final void setParallelThreshold(int elements) {
+		if (elements < 1) throw new IllegalArgumentException("elements");
+		this.parallelThreshold = elements;
+	}
+
+	/** All elements must be non negative. */
+	public final boolean allNonNegative(int[] values) throws RuntimeException {
+		return allNonNegative(values, 0, values.length);
+	}
+
+	/** All elements must be non negative, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allNonNegative(int[] values, int from, int to) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstNegative(values, from, to, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_NEGATIVE, values[index], index));
+		return true;
+	}
+
+	/** All elements must be non negative. */
+	public final boolean allNonNegative(long[] values) throws RuntimeException {
+		return allNonNegative(values, 0, values.length);
+	}
+
+	/** All elements must be non negative, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allNonNegative(long[] values, int from, int to) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstNegative(values, from, to, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_NEGATIVE, values[index], index));
+		return true;
+	}
+
+	/** All elements must be finite and non negative. */
+	public final boolean allNonNegative(float[] values) throws RuntimeException {
+		return allNonNegative(values, 0, values.length);
+	}
+
+	/** All elements must be finite and non negative, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allNonNegative(float[] values, int from, int to) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstNegative(values, from, to, parallelThreshold);
+		if (index >= 0) throw exception(new Message(Math.abs(values[index]) <= Float.MAX_VALUE ? ELEMENT_NEGATIVE : ELEMENT_FINITE, Float.valueOf(values[index]), Integer.valueOf(index)));
+		return true;
+	}
+
+	/** All elements must be finite and non negative. */
+	public final boolean allNonNegative(double[] values) throws RuntimeException {
+		return allNonNegative(values, 0, values.length);
+	}
+
+	/** All elements must be finite and non negative, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allNonNegative(double[] values, int from, int to) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstNegative(values, from, to, parallelThreshold);
+		if (index >= 0) throw exception(new Message(Math.abs(values[index]) <= Double.MAX_VALUE ? ELEMENT_NEGATIVE : ELEMENT_FINITE, Double.valueOf(values[index]), Integer.valueOf(index)));
+		return true;
+	}
+
+	/** All elements must not be NaN nor infinite. */
+	public final boolean allFinite(float[] values) throws RuntimeException {
+		return allFinite(values, 0, values.length);
+	}
+
+	/** All elements must not be NaN nor infinite, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allFinite(float[] values, int from, int to) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstNonFinite(values, from, to, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_FINITE, Float.valueOf(values[index]), Integer.valueOf(index)));
+		return true;
+	}
+
+	/** All elements must not be NaN nor infinite. */
+	public final boolean allFinite(double[] values) throws RuntimeException {
+		return allFinite(values, 0, values.length);
+	}
+
+	/** All elements must not be NaN nor infinite, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allFinite(double[] values, int from, int to) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstNonFinite(values, from, to, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_FINITE, Double.valueOf(values[index]), Integer.valueOf(index)));
+		return true;
+	}
+
+	/** All elements must be within a range, including the limits. */
+	public final boolean allInRange(int[] values, int min, int max) throws RuntimeException {
+		return allInRange(values, 0, values.length, min, max);
+	}
+
+	/** All elements must be within a range, including the limits, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allInRange(int[] values, int from, int to, int min, int max) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstOutOfRange(values, from, to, min, max, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_RANGE, Integer.valueOf(values[index]), Integer.valueOf(index), "[" + min + "-" + max + "]"));
+		return true;
+	}
+
+	/** All elements must be within a range, including the limits. */
+	public final boolean allInRange(long[] values, long min, long max) throws RuntimeException {
+		return allInRange(values, 0, values.length, min, max);
+	}
+
+	/** All elements must be within a range, including the limits, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allInRange(long[] values, int from, int to, long min, long max) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstOutOfRange(values, from, to, min, max, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_RANGE, Long.valueOf(values[index]), Integer.valueOf(index), "[" + min + "-" + max + "]"));
+		return true;
+	}
+
+	/** All elements must be within a range, including the limits. */
+	public final boolean allInRange(float[] values, float min, float max) throws RuntimeException {
+		return allInRange(values, 0, values.length, min, max);
+	}
+
+	/** All elements must be within a range, including the limits, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allInRange(float[] values, int from, int to, float min, float max) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstOutOfRange(values, from, to, min, max, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_RANGE, Float.valueOf(values[index]), Integer.valueOf(index), "[" + min + "-" + max + "]"));
+		return true;
+	}
+
+	/** All elements must be within a range, including the limits. */
+	public final boolean allInRange(double[] values, double min, double max) throws RuntimeException {
+		return allInRange(values, 0, values.length, min, max);
+	}
+
+	/** All elements must be within a range, including the limits, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allInRange(double[] values, int from, int to, double min, double max) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstOutOfRange(values, from, to, min, max, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_RANGE, Double.valueOf(values[index]), Integer.valueOf(index), "[" + min + "-" + max + "]"));
+		return true;
+	}
+
+	/** All elements must not be <code>null</code>. */
+	public final boolean allNotNull(Object[] values) throws RuntimeException {
+		return allNotNull(values, 0, values.length);
+	}
+
+	/** All elements must not be <code>null</code>, from index <code>from</code> (inclusive) to <code>to</code> (exclusive). */
+	public final boolean allNotNull(Object[] values, int from, int to) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = ArrayScan.firstNull(values, from, to, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_NULL, index));
+		return true;
+	}
+
+	// ************************************************************************
+	// *** COLLECTION CONTENT *************************************************
+	// ************************************************************************
+
+	/*
+	 * Bulk checks over collections. They report the violating element and its index in iteration order.
+	 * See CollectionScan for when large collections are split across threads.
+	 */
+
+	/** All elements must not be <code>null</code>. */
+	public final boolean allNotNull(Iterable<?> values) throws RuntimeException {
+		if (! enabled()) return true;
+		final int index = CollectionScan.firstNull(values, parallelThreshold);
+		if (index >= 0) throw exception(new Message(ELEMENT_NULL, index));
+		return true;
+	}
+
+	/**
+	 * All elements must satisfy the condition. Reports the first element that does not.
+	 * Large collections are checked by several threads, so the condition must be thread safe.
+	 */
+	public final <T> boolean allMatch(Iterable<T> values, ElementCondition<? super T> condition) throws RuntimeException {
+		if (! enabled()) return true;
+		final CollectionScan.Found found = CollectionScan.firstMismatch(values, condition, parallelThreshold);
+		if (found != null) throw exception(new Message(ELEMENT_MATCH, found.element, Integer.valueOf(found.index)));
+		return true;
+	}
+
+	/** No two elements may be equal. Reports the first element equal to a previous one. */
+	public final boolean allUnique(Iterable<?> values) throws RuntimeException {
+		if (! enabled()) return true;
+		final CollectionScan.Found found = CollectionScan.firstDuplicate(values, parallelThreshold);
+		if (found != null) throw exception(new Message(ELEMENT_UNIQUE, found.element, Integer.valueOf(found.index)));
 		return true;
 	}
 
@@ -233,7 +1087,19 @@ public abstract class Assert {
 	// ************************************************************************
 
 	public final boolean contains(Object value, Collection<?> collection) throws RuntimeException {
-		if (! collection.contains(value)) throw createException(String.format("collection must contain %s", value.toString()));
+		if (enabled() && ! collection.contains(value)) throw exception(new Message(CONTAINS, value));
+		return true;
+	}
+
+	/** Value must be one of the allowed values. Does not scan the values, and does not allocate for integers. */
+	public final boolean contains(Object value, AllowedValues allowed) throws RuntimeException {
+		if (enabled() && ! allowed.contains(value)) throw exception(new Message(ALLOWED, value));
+		return true;
+	}
+
+	/** Value must be one of the allowed values. Does not scan the values, and does not allocate for integers. */
+	public final boolean contains(long value, AllowedValues allowed) throws RuntimeException {
+		if (enabled() && ! allowed.contains(value)) throw exception(new Message(ALLOWED, value));
 		return true;
 	}
 
@@ -243,7 +1109,25 @@ public abstract class Assert {
 
 	/** Values must be non negative (greater or equal to zero). */
 	public final boolean nonNegative(int value) throws RuntimeException {
-		if (value < 0) throw createException(String.format("%d must not be negative", value));
+		if (enabled() && value < 0) throw exception(new Message(NON_NEGATIVE, value));
+		return true;
+	}
+
+	/** Values must be non negative (greater or equal to zero). */
+	public final boolean nonNegative(long value) throws RuntimeException {
+		if (enabled() && value < 0) throw exception(new Message(NON_NEGATIVE, value));
+		return true;
+	}
+
+	/** Values must be finite and non negative (greater or equal to zero). NaN and infinities are reported as not finite. */
+	public final boolean nonNegative(float value) throws RuntimeException {
+		if (enabled() && ! (value >= 0 && value <= Float.MAX_VALUE)) throw exception(new Message(Math.abs(value) <= Float.MAX_VALUE ? NON_NEGATIVE : FINITE, value));
+		return true;
+	}
+
+	/** Values must be finite and non negative (greater or equal to zero). NaN and infinities are reported as not finite. */
+	public final boolean nonNegative(double value) throws RuntimeException {
+		if (enabled() && ! (value >= 0 && value <= Double.MAX_VALUE)) throw exception(new Message(Math.abs(value) <= Double.MAX_VALUE ? NON_NEGATIVE : FINITE, value));
 		return true;
 	}
 
@@ -253,32 +1137,227 @@ public abstract class Assert {
 
 	/** Argument(s) must not be positive ( > 0). */
 	public final boolean positive(int value) throws RuntimeException {
-		if (value <= 0) throw createException(String.format("%d must be positive", value));
+		if (enabled() && value <= 0) throw exception(new Message(POSITIVE, value));
 		return true;
 	}
 	public final boolean positive(Integer value) throws RuntimeException {
-		if (value == null || value.intValue() <= 0) throw createException(String.format("%d must be positive", value));
+		if (enabled() && (value == null || value.intValue() <= 0)) throw exception(new Message(POSITIVE, (Object) value));
+		return true;
+	}
+	public final boolean positive(long value) throws RuntimeException {
+		if (enabled() && value <= 0) throw exception(new Message(POSITIVE, value));
+		return true;
+	}
+	public final boolean positive(float value) throws RuntimeException {
+		if (enabled() && ! (value > 0 && value <= Float.MAX_VALUE)) throw exception(new Message(Math.abs(value) <= Float.MAX_VALUE ? POSITIVE : FINITE, value));
 		return true;
 	}
 	public final boolean positive(double value) throws RuntimeException {
-		if (value <= 0 || Double.isNaN(value) || Double.isInfinite(value)) throw createException(String.format("%f must be positive", Double.valueOf(value)));
+		if (enabled() && ! (value > 0 && value <= Double.MAX_VALUE)) throw exception(new Message(Math.abs(value) <= Double.MAX_VALUE ? POSITIVE : FINITE, value));
 		return true;
 	}
 	public final boolean positive(Double value) throws RuntimeException {
-		if (value == null || value.doubleValue() <= 0.0 || value.isNaN() || value.isInfinite()) throw createException(String.format("%f must be positive", value));
+		if (enabled() && (value == null || ! (value.doubleValue() > 0.0 && value.doubleValue() <= Double.MAX_VALUE))) {
+			throw exception(new Message(value == null || Math.abs(value.doubleValue()) <= Double.MAX_VALUE ? POSITIVE : FINITE, (Object) value));
+		}
 		return true;
 	}
 
+	// ************************************************************************
+	// *** FINITE *************************************************************
+	// ************************************************************************
+
+	/** Value must not be NaN nor infinite. */
+	public final boolean finite(float value) throws RuntimeException {
+		if (enabled() && ! (Math.abs(value) <= Float.MAX_VALUE)) throw exception(new Message(FINITE, value));
+		return true;
+	}
+
+	/** Value must not be NaN nor infinite. */
+	public final boolean finite(double value) throws RuntimeException {
+		if (enabled() && ! (Math.abs(value) <= Double.MAX_VALUE)) throw exception(new Message(FINITE, value));
+		return true;
+	}
+
+	// ************************************************************************
+	// *** TEST ***************************************************************
+	// ************************************************************************
+
+	/** Same as {@link #check(boolean)}, but returns the violation instead of raising an exception. */
+	public final Violation testCheck(boolean condition) {
+		return condition ? Violation.NONE : Violation.FALSE;
+	}
+
+	/** Same as {@link #notNull(Object)}, but returns the violation instead of raising an exception. */
+	public final Violation testNotNull(Object argument) {
+		return argument != null ? Violation.NONE : Violation.NULL;
+	}
+
+	/** Same as {@link #equal(int, int)}, but returns the violation instead of raising an exception. */
+	public final Violation testEqual(int value, int expected) {
+		return value == expected ? Violation.NONE : Violation.NOT_EQUAL;
+	}
+
+	/** Same as {@link #equal(long, long)}, but returns the violation instead of raising an exception. */
+	public final Violation testEqual(long value, long expected) {
+		return value == expected ? Violation.NONE : Violation.NOT_EQUAL;
+	}
+
+	/** Same as {@link #equal(float, float)}, but returns the violation instead of raising an exception. */
+	public final Violation testEqual(float value, float expected) {
+		return value == expected ? Violation.NONE : Violation.NOT_EQUAL;
+	}
+
+	/** Same as {@link #equal(double, double)}, but returns the violation instead of raising an exception. */
+	public final Violation testEqual(double value, double expected) {
+		return value == expected ? Violation.NONE : Violation.NOT_EQUAL;
+	}
+
+	/** Same as {@link #equal(Object, Object)}, but returns the violation instead of raising an exception. */
+	public final <T> Violation testEqual(T value, T expected) {
+		return value == expected || (value != null && value.equals(expected)) ? Violation.NONE : Violation.NOT_EQUAL;
+	}
+
+	/** Same as {@link #range(int, int, int)}, but returns the violation instead of raising an exception. */
+	public final Violation testRange(int value, int min, int max) {
+		return value <= min || value >= max ? Violation.OUT_OF_RANGE : Violation.NONE;
+	}
+
+	/** Same as {@link #range(long, long, long)}, but returns the violation instead of raising an exception. */
+	public final Violation testRange(long value, long min, long max) {
+		return value <= min || value >= max ? Violation.OUT_OF_RANGE : Violation.NONE;
+	}
+
+	/** Same as {@link #range(float, float, float)}, but returns the violation instead of raising an exception. */
+	public final Violation testRange(float value, float min, float max) {
+		return value > min && value < max ? Violation.NONE : Violation.OUT_OF_RANGE;
+	}
+
+	/** Same as {@link #range(double, double, double)}, but returns the violation instead of raising an exception. */
+	public final Violation testRange(double value, double min, double max) {
+		return value > min && value < max ? Violation.NONE : Violation.OUT_OF_RANGE;
+	}
+
+	/** Same as {@link #rangeInclusive(int, int, int)}, but returns the violation instead of raising an exception. */
+	public final Violation testRangeInclusive(int value, int min, int max) {
+		return value < min || value > max ? Violation.OUT_OF_RANGE : Violation.NONE;
+	}
+
+	/** Same as {@link #rangeInclusive(long, long, long)}, but returns the violation instead of raising an exception. */
+	public final Violation testRangeInclusive(long value, long min, long max) {
+		return value < min || value > max ? Violation.OUT_OF_RANGE : Violation.NONE;
+	}
+
+	/** Same as {@link #rangeInclusive(float, float, float)}, but returns the violation instead of raising an exception. */
+	public final Violation testRangeInclusive(float value, float min, float max) {
+		return value >= min && value <= max ? Violation.NONE : Violation.OUT_OF_RANGE;
+	}
+
+	/** Same as {@link #rangeInclusive(double, double, double)}, but returns the violation instead of raising an exception. */
+	public final Violation testRangeInclusive(double value, double min, double max) {
+		return value >= min && value <= max ? Violation.NONE : Violation.OUT_OF_RANGE;
+	}
+
+	/** Same as {@link #range(Comparable, Comparable, Comparable)}, but returns the violation instead of raising an exception. */
+	public final <T extends Comparable<T>> Violation testRange(T value, T min, T max) {
+		if (value == null) return Violation.NULL;
+		return value.compareTo(min) < 0 || value.compareTo(max) > 0 ? Violation.OUT_OF_RANGE : Violation.NONE;
+	}
+
+	/** Same as {@link #contains(Object, Collection)}, but returns the violation instead of raising an exception. */
+	public final Violation testContains(Object value, Collection<?> collection) {
+		return collection.contains(value) ? Violation.NONE : Violation.NOT_CONTAINED;
+	}
+
+	/** Same as {@link #contains(Object, AllowedValues)}, but returns the violation instead of raising an exception. */
+	public final Violation testContains(Object value, AllowedValues allowed) {
+		return allowed.contains(value) ? Violation.NONE : Violation.NOT_CONTAINED;
+	}
+
+	/** Same as {@link #contains(long, AllowedValues)}, but returns the violation instead of raising an exception. */
+	public final Violation testContains(long value, AllowedValues allowed) {
+		return allowed.contains(value) ? Violation.NONE : Violation.NOT_CONTAINED;
+	}
+
+	/** Same as {@link #nonNegative(int)}, but returns the violation instead of raising an exception. */
+	public final Violation testNonNegative(int value) {
+		return value < 0 ? Violation.NEGATIVE : Violation.NONE;
+	}
+
+	/** Same as {@link #nonNegative(long)}, but returns the violation instead of raising an exception. */
+	public final Violation testNonNegative(long value) {
+		return value < 0 ? Violation.NEGATIVE : Violation.NONE;
+	}
+
+	/** Same as {@link #nonNegative(float)}, but returns the violation instead of raising an exception. */
+	public final Violation testNonNegative(float value) {
+		if (value >= 0 && value <= Float.MAX_VALUE) return Violation.NONE;
+		return Math.abs(value) <= Float.MAX_VALUE ? Violation.NEGATIVE : Violation.NOT_FINITE;
+	}
+
+	/** Same as {@link #nonNegative(double)}, but returns the violation instead of raising an exception. */
+	public final Violation testNonNegative(double value) {
+		if (value >= 0 && value <= Double.MAX_VALUE) return Violation.NONE;
+		return Math.abs(value) <= Double.MAX_VALUE ? Violation.NEGATIVE : Violation.NOT_FINITE;
+	}
+
+	/** Same as {@link #positive(int)}, but returns the violation instead of raising an exception. */
+	public final Violation testPositive(int value) {
+		return value <= 0 ? Violation.NOT_POSITIVE : Violation.NONE;
+	}
+
+	/** Same as {@link #positive(long)}, but returns the violation instead of raising an exception. */
+	public final Violation testPositive(long value) {
+		return value <= 0 ? Violation.NOT_POSITIVE : Violation.NONE;
+	}
+
+	/** Same as {@link #positive(float)}, but returns the violation instead of raising an exception. */
+	public final Violation testPositive(float value) {
+		if (value > 0 && value <= Float.MAX_VALUE) return Violation.NONE;
+		return Math.abs(value) <= Float.MAX_VALUE ? Violation.NOT_POSITIVE : Violation.NOT_FINITE;
+	}
+
+	/** Same as {@link #positive(double)}, but returns the violation instead of raising an exception. */
+	public final Violation testPositive(double value) {
+		if (value > 0 && value <= Double.MAX_VALUE) return Violation.NONE;
+		return Math.abs(value) <= Double.MAX_VALUE ? Violation.NOT_POSITIVE : Violation.NOT_FINITE;
+	}
+
+	/** Same as {@link #finite(float)}, but returns the violation instead of raising an exception. */
+	public final Violation testFinite(float value) {
+		return Math.abs(value) <= Float.MAX_VALUE ? Violation.NONE : Violation.NOT_FINITE;
+	}
+
+	/** Same as {@link #finite(double)}, but returns the violation instead of raising an exception. */
+	public final Violation testFinite(double value) {
+		return Math.abs(value) <= Double.MAX_VALUE ? Violation.NONE : Violation.NOT_FINITE;
+	}
+
+	/**
+	 * Creates, but does not raise, the exception of this category for a violation returned by a test method.
+	 * The violation is the rule of the exception, so {@link TraceMode#SHARED} reuses one exception per violation.
+	 */
+	public final RuntimeException failure(Violation violation) {
+		if (violation == null || violation == Violation.NONE) throw new IllegalArgumentException("violation");
+		return exception((Object) violation);
+	}
+
+	// ************************************************************************
+	// *** COLLECTING *********************************************************
+	// ************************************************************************
+
+	/**
+	 * Starts a validation that records all violations and raises a single exception of this category at the end.
+	 * See {@link Validator}.
+	 */
+	public final Validator collect() {
+		return Validator.of(this);
+	}
+
 //
 //	/** Argument(s) must not be <code>null</code> as expected by a system rule. */
 //	public final <T> boolean notNull(Object rule, T argument) throws RuntimeException {
-//		if (argument == null) throw createException(rule);
+//		if (argument == null) throw exception(rule);
 //		return true;
 //	}
-
-	private static Object nullToStr(Object o) {
-		if (o == null)
-			return "null";
-		return o;
-	}
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.Map;
+
+/**
+ * JMX view of the {@link Assert} category switches.
+ *
+ * @author Daniel Felix Ferber
+ */
+public interface AssertMXBean {
+	/** Whether checks of each category raise exceptions. */
+	Map<String, Boolean> getEnabledCategories();
+
+	/** Switches on checks of a category disabled at startup (eg. <code>"Invariant"</code>). Requires Java 9 or later. */
+	void switchOn(String category);
+
+	/** Restores the startup setting of a category. */
+	void switchOff(String category);
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.usefultoys.exception.AsyncExceptionReporter;
+import org.usefultoys.exception.AsyncExceptionReporter.Overflow;
+import org.usefultoys.exception.StripedCounter;
+
+/**
+ * Verifies deferred checks on background threads, so the calling thread does not wait for them.
+ * Intended for {@link Assert#Poscondition} and {@link Assert#Invariant} checks on immutable snapshots:
+ * the condition must not depend on state that the caller changes after submitting it.
+ * <p>
+ * Checks wait in a bounded queue. When the queue is full, the {@link Overflow} policy decides which check is lost,
+ * or if the caller waits. A failed check creates the exception of its category (eg. {@link IllegalInvariant})
+ * and passes it to the {@link FailureHandler}, without stack trace. To find where failed checks come from, see
+ * {@link #setCapturingCallSites(boolean)}. A condition that throws counts as
+ * failed, with the thrown exception as cause. If the handler itself throws, the exception goes to the
+ * {@link Thread.UncaughtExceptionHandler} of the worker thread and the worker continues.
+ * <p>
+ * Example:
+ * <pre>
+ * AsyncVerifier verifier = new AsyncVerifier(2, 1024, Overflow.DROP_NEWEST, AsyncVerifier.reportingTo(reporter)).start();
+ * verifier.installShutdownHook();
+ * ...
+ * verifier.submit(Assert.Poscondition, isSorted);
+ * </pre>
+ * By default, checks run on daemon threads, or on virtual threads on Java 21 and later.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class AsyncVerifier {
+
+	/**
+	 * Receives exceptions of failed checks, on a worker thread.
+	 * Exceptions thrown by the handler go to the uncaught exception handler of the worker thread.
+	 */
+	public interface FailureHandler {
+		void failed(RuntimeException exception);
+	}
+
+	/** Handler that enqueues failures into the reporter. */
+	public static FailureHandler reportingTo(final AsyncExceptionReporter reporter) {
+		if (reporter == null) throw new IllegalArgumentException("reporter");
+		return new FailureHandler() {
+			@Override
+			public void failed(final RuntimeException exception) {
+				reporter.report(exception);
+			}
+		};
+	}
+
+	private static final long POLL_MILLIS = 100;
+
+	private static final class Task {
+		final Assert category;
+		final Object rule;
+		final DeferredCondition condition;
+		/** Backtrace of the submitting call, if captured; frames are only materialized if the check fails. */
+		final Throwable callSite;
+
+		Task(final Assert category, final Object rule, final DeferredCondition condition, final Throwable callSite) {
+			this.category = category;
+			this.rule = rule;
+			this.condition = condition;
+			this.callSite = callSite;
+		}
+	}
+
+	private final Overflow overflow;
+	private final FailureHandler handler;
+	private final BlockingQueue<Task> queue;
+	private final StripedCounter dropped = new StripedCounter();
+	private final StripedCounter verified = new StripedCounter();
+	private final StripedCounter failed = new StripedCounter();
+	private volatile boolean closed = false;
+	private volatile boolean capturingCallSites = false;
+	/** Set by the last worker thread once no worker takes checks from the queue. */
+	private volatile boolean finished = false;
+	private final AtomicBoolean started = new AtomicBoolean();
+	private final AtomicInteger running;
+	private final List<Thread> workers;
+
+	/** Verifier with daemon worker threads; virtual threads on Java 21 and later. */
+	public AsyncVerifier(final int threads, final int capacity, final Overflow overflow, final FailureHandler handler) {
+		this(threads, capacity, overflow, handler, WorkerThreads.factory("async-verifier-"));
+	}
+
+	/** Verifier with worker threads created by the factory. */
+	public AsyncVerifier(final int threads, final int capacity, final Overflow overflow, final FailureHandler handler, final ThreadFactory factory) {
+		if (threads < 1) throw new IllegalArgumentException("threads");
+		if (capacity < 1) throw new IllegalArgumentException("capacity");
+		if (overflow == null) throw new IllegalArgumentException("overflow");
+		if (handler == null) throw new IllegalArgumentException("handler");
+		if (factory == null) throw new IllegalArgumentException("factory");
+		this.overflow = overflow;
+		this.handler = handler;
+		this.queue = new ArrayBlockingQueue<Task>(capacity);
+		this.workers = new ArrayList<Thread>(threads);
+		this.running = new AtomicInteger(threads);
+		final Runnable work = new Runnable() {
+			@Override
+			public void run() {
+				consume();
+			}
+		};
+		for (int i = 0; i < threads; i++) workers.add(factory.newThread(work));
+	}
+
+	/**
+	 * Whether failed checks carry the stack trace of the submitting call, if their category uses
+	 * {@link Assert.TraceMode#FULL}. Off by default: capturing fills in a stack trace on every submit, even for checks
+	 * that hold, which costs more than most deferred checks save. Switch on to diagnose failures.
+	 */
+	public void setCapturingCallSites(final boolean capturing) {
+		this.capturingCallSites = capturing;
+	}
+
+	/** True if failed checks carry the stack trace of the submitting call. */
+	public boolean isCapturingCallSites() {
+		return capturingCallSites;
+	}
+
+	/** Starts the worker threads. Does nothing if already started. */
+	public AsyncVerifier start() {
+		if (started.compareAndSet(false, true)) {
+			for (final Thread worker : workers) worker.start();
+		}
+		return this;
+	}
+
+	/**
+	 * Enqueues the check to be verified. Does nothing if the category is disabled.
+	 * Returns immediately, unless the queue is full and the policy is {@link Overflow#BLOCK}.
+	 * @return false if the check was discarded
+	 */
+	public boolean submit(final Assert category, final DeferredCondition condition) {
+		return submit(category, null, condition);
+	}
+
+	/**
+	 * Enqueues the check to be verified. On failure, the exception is created with the rule.
+	 * @return false if the check was discarded
+	 */
+	public boolean submit(final Assert category, final Object rule, final DeferredCondition condition) {
+		if (category == null) throw new IllegalArgumentException("category");
+		if (condition == null) throw new IllegalArgumentException("condition");
+		if (! category.isEnabled()) return true;
+		final Throwable callSite = capturingCallSites && category.getTraceMode() == Assert.TraceMode.FULL ? new Throwable() : null;
+		return offer(new Task(category, rule, condition, callSite));
+	}
+
+	private boolean offer(final Task task) {
+		if (closed) {
+			dropped.increment();
+			return false;
+		}
+		if (! enqueue(task)) return false;
+		/* Closed meanwhile: if all workers are already gone, nobody else takes the check. */
+		return ! (closed && finished && discardPending(task));
+	}
+
+	/**
+	 * Enqueues the check according to the overflow policy, as {@link AsyncExceptionReporter} does with reports.
+	 * Checks discarded because the queue is full, or because the caller was interrupted while waiting, are counted as dropped.
+	 * @return false if the new check was discarded
+	 */
+	private boolean enqueue(final Task task) {
+		switch (overflow) {
+			case DROP_NEWEST:
+				if (queue.offer(task)) return true;
+				dropped.increment();
+				return false;
+			case DROP_OLDEST:
+				while (! queue.offer(task)) {
+					if (queue.poll() != null) dropped.increment();
+				}
+				return true;
+			default:
+				try {
+					queue.put(task);
+					return true;
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					dropped.increment();
+					return false;
+				}
+		}
+	}
+
+	/** Checks discarded because the queue was full or the verifier was closed. */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/** Checks evaluated by the worker threads, including failed ones. */
+	public long getVerifiedCount() {
+		return verified.sum();
+	}
+
+	/** Checks that did not hold. */
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	/** Checks waiting in the queue. */
+	public int getPendingCount() {
+		return queue.size();
+	}
+
+	/**
+	 * Stops accepting checks, verifies all pending checks and stops the worker threads.
+	 * Starts the worker threads if not started yet, so that pending checks are verified.
+	 * Waits at most the given time for the pending checks; with zero, does not wait.
+	 * Checks submitted concurrently with close are either verified or counted as dropped.
+	 * @return true if all pending checks were verified
+	 */
+	public boolean close(final long timeout, final TimeUnit unit) throws InterruptedException {
+		closed = true;
+		start();
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (final Thread worker : workers) {
+			for (long remaining = deadline - System.nanoTime(); remaining > 0 && worker.isAlive(); remaining = deadline - System.nanoTime()) {
+				worker.join(TimeUnit.NANOSECONDS.toMillis(remaining), (int) (remaining % 1000000L));
+			}
+		}
+		return finished;
+	}
+
+	/** Calls {@link #close(long, TimeUnit)} when the JVM shuts down, waiting at most 5 seconds. */
+	public void installShutdownHook() {
+		Runtime.getRuntime().addShutdownHook(new Thread("async-verifier-shutdown") {
+			@Override
+			public void run() {
+				try {
+					AsyncVerifier.this.close(5, TimeUnit.SECONDS);
+				} catch (final InterruptedException e) {
+					// JVM is exiting anyway
+				}
+			}
+		});
+	}
+
+	private void consume() {
+		try {
+			while (! closed || ! queue.isEmpty()) {
+				try {
+					final Task task = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+					if (task != null) verify(task);
+				} catch (final InterruptedException e) {
+					// only close() stops the verifier
+				} catch (final Throwable e) {
+					// a failing handler or check must not stop the worker
+					final Thread worker = Thread.currentThread();
+					worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+				}
+			}
+		} finally {
+			if (running.decrementAndGet() == 0) {
+				finished = true;
+				discardPending(null);
+			}
+		}
+	}
+
+	/**
+	 * Counts checks left in the queue after all workers finished as dropped.
+	 * @return true if the given check was among them
+	 */
+	private boolean discardPending(final Task task) {
+		boolean found = false;
+		for (Task pending = queue.poll(); pending != null; pending = queue.poll()) {
+			dropped.increment();
+			if (pending == task) found = true;
+		}
+		return found;
+	}
+
+	private void verify(final Task task) {
+		Throwable error = null;
+		boolean holds;
+		try {
+			holds = task.condition.evaluate();
+		} catch (final Throwable e) {
+			holds = false;
+			error = e;
+		}
+		verified.increment();
+		if (holds) return;
+		failed.increment();
+		final StackTraceElement[] callSite = task.callSite == null ? null : callerFrames(task.callSite.getStackTrace());
+		final RuntimeException exception = task.category.detachedException(task.rule, callSite);
+		if (error != null && exception.getCause() == null) exception.initCause(error);
+		handler.failed(exception);
+	}
+
+	/** Removes the frames of this class, so the trace starts at the caller of submit. */
+	private static StackTraceElement[] callerFrames(final StackTraceElement[] frames) {
+		int first = 0;
+		while (first < frames.length && AsyncVerifier.class.getName().equals(frames[first].getClassName())) first++;
+		final StackTraceElement[] result = new StackTraceElement[frames.length - first];
+		System.arraycopy(frames, first, result, 0, result.length);
+		return result;
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+/**
+ * Runtime switches of the {@link Assert} categories disabled at startup.
+ * This implementation has no switches: every method returns a constant <code>false</code>, so once inlined, checks of
+ * a disabled category fold to nothing. A switch read on every check would cost each of them a volatile load.
+ * On Java 9 and later, the multi-release jar replaces it by switches the JIT also treats as constants.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class CategorySwitch {
+	private CategorySwitch() {
+		// cannot create instance
+	}
+
+	/** True if categories can be switched on at runtime. */
+	static boolean isSupported() {
+		return false;
+	}
+
+	static boolean argument() { return false; }
+	static boolean attribute() { return false; }
+	static boolean environment() { return false; }
+	static boolean precondition() { return false; }
+	static boolean poscondition() { return false; }
+	static boolean invariant() { return false; }
+
+	/** True if the category (eg. <code>"Invariant"</code>) was switched on at runtime. */
+	static boolean isOn(final String category) {
+		return false;
+	}
+
+	/** Switches a category on or off for all threads. */
+	static void set(final String category, final boolean on) {
+		throw new IllegalStateException("Categories can be switched at runtime only on Java 9 or later");
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds the first element of a collection that violates a bulk check of {@link Assert}.
+ * <p>
+ * Collections with at least the parallel threshold of the category (see {@link Assert#setParallelThreshold(int)})
+ * are split across threads by {@link ParallelScan}: random access lists by index, other collections after one copy
+ * into an array. Otherwise, random access lists are scanned by index and do not allocate.
+ * Other iterables are scanned sequentially with their iterator.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class CollectionScan {
+	private CollectionScan() {
+		// utility class
+	}
+
+	/** Stands for null in concurrent maps, which do not accept null keys. */
+	private static final Object NULL = new Object();
+
+	private static boolean parallel(final Iterable<?> values, final int parallelThreshold) {
+		return values instanceof Collection && ((Collection<?>) values).size() >= parallelThreshold && ParallelScan.PARALLELISM > 1;
+	}
+
+	/** Violating element and its index. Only created to report a violation, so scans that pass do not allocate it. */
+	static final class Found {
+		final int index;
+		final Object element;
+
+		Found(final int index, final Object element) {
+			this.index = index;
+			this.element = element;
+		}
+	}
+
+	// ************************************************************************
+	// *** NULL ***************************************************************
+	// ************************************************************************
+
+	static int firstNull(final Iterable<?> values, final int parallelThreshold) {
+		if (parallel(values, parallelThreshold)) {
+			if (values instanceof List && values instanceof RandomAccess) {
+				final List<?> list = (List<?>) values;
+				return new ParallelScan() {
+					@Override int scan(final int from, final int to) {
+						for (int i = from; i < to; i++) if (list.get(i) == null) return i;
+						return -1;
+					}
+				}.run(0, list.size());
+			}
+			final Object[] array = ((Collection<?>) values).toArray();
+			return ArrayScan.firstNull(array, 0, array.length, parallelThreshold);
+		}
+		if (values instanceof List && values instanceof RandomAccess) {
+			final List<?> list = (List<?>) values;
+			final int size = list.size();
+			for (int i = 0; i < size; i++) if (list.get(i) == null) return i;
+			return -1;
+		}
+		int i = 0;
+		for (final Object value : values) {
+			if (value == null) return i;
+			i++;
+		}
+		return -1;
+	}
+
+	// ************************************************************************
+	// *** MATCH **************************************************************
+	// ************************************************************************
+
+	static <T> Found firstMismatch(final Iterable<T> values, final ElementCondition<? super T> condition, final int parallelThreshold) {
+		if (parallel(values, parallelThreshold)) {
+			if (values instanceof List && values instanceof RandomAccess) {
+				final List<T> list = (List<T>) values;
+				final int index = new ParallelScan() {
+					@Override int scan(final int from, final int to) {
+						for (int i = from; i < to; i++) if (! condition.test(list.get(i))) return i;
+						return -1;
+					}
+				}.run(0, list.size());
+				return index < 0 ? null : new Found(index, list.get(index));
+			}
+			final Object[] array = ((Collection<T>) values).toArray();
+			final int index = new ParallelScan() {
+				@SuppressWarnings("unchecked")
+				@Override int scan(final int from, final int to) {
+					for (int i = from; i < to; i++) if (! condition.test((T) array[i])) return i;
+					return -1;
+				}
+			}.run(0, array.length);
+			return index < 0 ? null : new Found(index, array[index]);
+		}
+		if (values instanceof List && values instanceof RandomAccess) {
+			final List<T> list = (List<T>) values;
+			final int size = list.size();
+			for (int i = 0; i < size; i++) {
+				final T value = list.get(i);
+				if (! condition.test(value)) return new Found(i, value);
+			}
+			return null;
+		}
+		int i = 0;
+		for (final T value : values) {
+			if (! condition.test(value)) return new Found(i, value);
+			i++;
+		}
+		return null;
+	}
+
+	// ************************************************************************
+	// *** DUPLICATE **********************************************************
+	// ************************************************************************
+
+	/**
+	 * First element equal to a previous element, the same in parallel as sequentially.
+	 * In parallel, a first pass records the lowest index of each value, and a second pass finds the lowest index
+	 * of an element whose value was recorded at a lower index.
+	 */
+	static Found firstDuplicate(final Iterable<?> values, final int parallelThreshold) {
+		if (parallel(values, parallelThreshold)) {
+			final Object[] array = ((Collection<?>) values).toArray();
+			final ConcurrentMap<Object, Integer> firstIndex = new ConcurrentHashMap<Object, Integer>(array.length, 0.75f, ParallelScan.PARALLELISM);
+			new ParallelScan() {
+				@Override int scan(final int from, final int to) {
+					for (int i = from; i < to; i++) lower(firstIndex, key(array[i]), i);
+					return -1;
+				}
+			}.run(0, array.length);
+			final int index = new ParallelScan() {
+				@Override int scan(final int from, final int to) {
+					for (int i = from; i < to; i++) if (firstIndex.get(key(array[i])).intValue() < i) return i;
+					return -1;
+				}
+			}.run(0, array.length);
+			return index < 0 ? null : new Found(index, array[index]);
+		}
+		final Set<Object> seen = values instanceof Collection ? new HashSet<Object>(Math.max(16, (int) (((Collection<?>) values).size() / 0.75f) + 1)) : new HashSet<Object>();
+		int i = 0;
+		for (final Object value : values) {
+			if (! seen.add(value)) return new Found(i, value);
+			i++;
+		}
+		return null;
+	}
+
+	private static Object key(final Object value) {
+		return value == null ? NULL : value;
+	}
+
+	/** Records the index for the key, unless a lower index is already recorded. */
+	private static void lower(final ConcurrentMap<Object, Integer> firstIndex, final Object key, final int index) {
+		final Integer candidate = Integer.valueOf(index);
+		Integer current = firstIndex.putIfAbsent(key, candidate);
+		while (current != null && current.intValue() > index && ! firstIndex.replace(key, current, candidate)) {
+			current = firstIndex.get(key);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+/**
+ * A condition evaluated only if and when a check decides to verify it.
+ * Same shape as <code>java.util.function.BooleanSupplier</code>, so Java 8 callers may pass a lambda.
+ * <p>
+ * Example:
+ * <pre>
+ * balanced.check(new DeferredCondition() {
+ *   public boolean evaluate() { return tree.isBalanced(); }
+ * });
+ * </pre>
+ * Keep the instance in a field to avoid allocating one per call.
+ *
+ * @author Daniel Felix Ferber
+ */
+public interface DeferredCondition {
+	/** True if the condition holds. */
+	boolean evaluate();
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+/**
+ * A condition that each element of a collection must satisfy (see {@link Assert#allMatch(Iterable, ElementCondition)}).
+ * Same shape as <code>java.util.function.Predicate</code>, so Java 8 callers may pass a lambda.
+ * Large collections are checked by several threads, so the condition must be thread safe.
+ *
+ * @author Daniel Felix Ferber
+ */
+public interface ElementCondition<T> {
+	/** True if the element satisfies the condition. */
+	boolean test(T element);
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable copy of the environment variables and system properties, for {@link Assert.Environment} checks.
+ * Looking up a name costs a hash map lookup, instead of {@link System#getenv(String)} on each check.
+ * Values parsed as numbers or booleans are cached, so checking them again costs one more lookup.
+ * Only names present in the snapshot are cached, so the caches never outgrow the snapshot.
+ * <p>
+ * A setting (see {@link #get(String)}) is the system property of the name, or else the environment variable.
+ * Changes to the environment or to the system properties are only seen by a new snapshot
+ * (see {@link Assert.Environment#refresh()}).
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class EnvironmentSnapshot {
+	/** Cached result for a value that does not parse. */
+	private static final Object INVALID = new Object();
+
+	private final Map<String, String> environment;
+	private final Map<String, String> properties;
+	private final ConcurrentMap<String, Object> ints = new ConcurrentHashMap<String, Object>();
+	private final ConcurrentMap<String, Object> longs = new ConcurrentHashMap<String, Object>();
+	private final ConcurrentMap<String, Object> booleans = new ConcurrentHashMap<String, Object>();
+
+	/** Snapshot of the given environment variables and system properties. */
+	public EnvironmentSnapshot(final Map<String, String> environment, final Properties properties) {
+		if (environment == null) throw new IllegalArgumentException("environment");
+		if (properties == null) throw new IllegalArgumentException("properties");
+		this.environment = Collections.unmodifiableMap(new HashMap<String, String>(environment));
+		final Map<String, String> copy = new HashMap<String, String>();
+		for (final String name : properties.stringPropertyNames()) copy.put(name, properties.getProperty(name));
+		this.properties = Collections.unmodifiableMap(copy);
+	}
+
+	/** Snapshot of the current environment variables and system properties. */
+	public static EnvironmentSnapshot capture() {
+		Map<String, String> environment;
+		try {
+			environment = System.getenv();
+		} catch (final SecurityException e) {
+			environment = Collections.emptyMap();
+		}
+		Properties properties;
+		try {
+			properties = System.getProperties();
+		} catch (final SecurityException e) {
+			properties = new Properties();
+		}
+		return new EnvironmentSnapshot(environment, properties);
+	}
+
+	/** Environment variable, or null. */
+	public String getenv(final String name) {
+		return environment.get(name);
+	}
+
+	/** System property, or null. */
+	public String getProperty(final String name) {
+		return properties.get(name);
+	}
+
+	/** System property of the name if there is one, else the environment variable, else null. */
+	public String get(final String name) {
+		final String value = properties.get(name);
+		return value != null ? value : environment.get(name);
+	}
+
+	/** Setting parsed as int, or null if missing or not an int. */
+	public Integer getInt(final String name) {
+		Object value = ints.get(name);
+		if (value == null) {
+			final String text = get(name);
+			if (text == null) return null;
+			value = INVALID;
+			try {
+				value = Integer.valueOf(text.trim());
+			} catch (final NumberFormatException e) {
+				// cached as invalid
+			}
+			ints.putIfAbsent(name, value);
+		}
+		return value == INVALID ? null : (Integer) value;
+	}
+
+	/** Setting parsed as long, or null if missing or not a long. */
+	public Long getLong(final String name) {
+		Object value = longs.get(name);
+		if (value == null) {
+			final String text = get(name);
+			if (text == null) return null;
+			value = INVALID;
+			try {
+				value = Long.valueOf(text.trim());
+			} catch (final NumberFormatException e) {
+				// cached as invalid
+			}
+			longs.putIfAbsent(name, value);
+		}
+		return value == INVALID ? null : (Long) value;
+	}
+
+	/** Setting parsed as boolean (<code>true</code> or <code>false</code>, ignoring case), or null if missing or not a boolean. */
+	public Boolean getBoolean(final String name) {
+		Object value = booleans.get(name);
+		if (value == null) {
+			final String text = get(name);
+			if (text == null) return null;
+			value = INVALID;
+			final String trimmed = text.trim();
+			if ("true".equalsIgnoreCase(trimmed)) value = Boolean.TRUE;
+			else if ("false".equalsIgnoreCase(trimmed)) value = Boolean.FALSE;
+			booleans.putIfAbsent(name, value);
+		}
+		return value == INVALID ? null : (Boolean) value;
+	}
+}
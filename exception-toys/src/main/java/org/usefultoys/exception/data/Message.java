@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * A failure message that is rendered from its {@link MessageTemplate} and arguments,
+ * or obtained from a {@link MessageSupplier}, only when first requested.
+ * Exceptions that are caught and discarded never pay for building the string,
+ * whether or not they have a stack trace.
+ * Rendering reuses a {@link StringBuilder} of the current thread. While in use, the builder is taken out of the
+ * thread, so that arguments rendering other messages from their <code>toString()</code> get a new builder.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class Message implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final byte LONG = 0;
+	private static final byte DOUBLE = 1;
+	private static final byte OBJECT = 2;
+	private static final byte SUPPLIER = 3;
+	private static final byte FLOAT = 4;
+
+	/** Builders larger than this are not kept for reuse. */
+	private static final int MAX_BUILDER = 1024;
+
+	/** Builder of the current thread; <code>null</code> while rendering. */
+	private static final ThreadLocal<StringBuilder> builder = new ThreadLocal<StringBuilder>();
+
+	private final transient MessageTemplate template;
+	private final transient byte kind;
+	private final transient int arity;
+	private final transient long n0, n1, n2;
+	private final transient Object o0, o1, o2;
+	private String rendered;
+
+	private Message(final MessageTemplate template, final byte kind, final int arity, final long n0, final long n1, final long n2, final Object o0, final Object o1, final Object o2) {
+		this.template = template;
+		this.kind = kind;
+		this.arity = arity;
+		this.n0 = n0;
+		this.n1 = n1;
+		this.n2 = n2;
+		this.o0 = o0;
+		this.o1 = o1;
+		this.o2 = o2;
+	}
+
+	private Message(final String rendered) {
+		this(null, OBJECT, 0, 0, 0, 0, null, null, null);
+		this.rendered = rendered;
+	}
+
+	Message(final MessageTemplate template, final long a) { this(template, LONG, 1, a, 0, 0, null, null, null); }
+	Message(final MessageTemplate template, final long a, final long b) { this(template, LONG, 2, a, b, 0, null, null, null); }
+	Message(final MessageTemplate template, final long a, final long b, final long c) { this(template, LONG, 3, a, b, c, null, null, null); }
+	Message(final MessageTemplate template, final double a) { this(template, DOUBLE, 1, Double.doubleToRawLongBits(a), 0, 0, null, null, null); }
+	Message(final MessageTemplate template, final double a, final double b) { this(template, DOUBLE, 2, Double.doubleToRawLongBits(a), Double.doubleToRawLongBits(b), 0, null, null, null); }
+	Message(final MessageTemplate template, final double a, final double b, final double c) { this(template, DOUBLE, 3, Double.doubleToRawLongBits(a), Double.doubleToRawLongBits(b), Double.doubleToRawLongBits(c), null, null, null); }
+	Message(final MessageTemplate template, final float a) { this(template, FLOAT, 1, Float.floatToRawIntBits(a), 0, 0, null, null, null); }
+	Message(final MessageTemplate template, final float a, final float b) { this(template, FLOAT, 2, Float.floatToRawIntBits(a), Float.floatToRawIntBits(b), 0, null, null, null); }
+	Message(final MessageTemplate template, final float a, final float b, final float c) { this(template, FLOAT, 3, Float.floatToRawIntBits(a), Float.floatToRawIntBits(b), Float.floatToRawIntBits(c), null, null, null); }
+	Message(final MessageTemplate template, final Object a) { this(template, OBJECT, 1, 0, 0, 0, a, null, null); }
+	Message(final MessageTemplate template, final Object a, final Object b) { this(template, OBJECT, 2, 0, 0, 0, a, b, null); }
+	Message(final MessageTemplate template, final Object a, final Object b, final Object c) { this(template, OBJECT, 3, 0, 0, 0, a, b, c); }
+	Message(final MessageSupplier supplier) { this(null, SUPPLIER, 0, 0, 0, 0, supplier, null, null); }
+
+	/** Pattern of the template, without rendering. <code>null</code> for supplied messages. */
+	String getPattern() {
+		return template == null ? null : template.getPattern();
+	}
+
+	/**
+	 * Renders the message once; concurrent first calls wait for the first one. A String is immutable,
+	 * so reading the rendered field without the lock is safe.
+	 */
+	@Override
+	public String toString() {
+		String result = rendered;
+		if (result == null) {
+			synchronized (this) {
+				result = rendered;
+				if (result == null) rendered = result = render();
+			}
+		}
+		return result;
+	}
+
+	private String render() {
+		StringBuilder sb = builder.get();
+		if (sb == null || sb.capacity() > MAX_BUILDER) sb = new StringBuilder(128);
+		builder.set(null);
+		try {
+			sb.setLength(0);
+			return appendTo(sb).toString();
+		} finally {
+			builder.set(sb);
+		}
+	}
+
+	private StringBuilder appendTo(final StringBuilder sb) {
+		if (kind == SUPPLIER) return appendSupplied(sb);
+		if (template == null) return sb.append((String) null);
+		if (template.getArity() != arity) return appendMismatch(sb);
+		switch (kind) {
+			case LONG:
+				if (arity == 1) return template.appendTo(sb, n0);
+				if (arity == 2) return template.appendTo(sb, n0, n1);
+				return template.appendTo(sb, n0, n1, n2);
+			case DOUBLE:
+				if (arity == 1) return template.appendTo(sb, Double.longBitsToDouble(n0));
+				if (arity == 2) return template.appendTo(sb, Double.longBitsToDouble(n0), Double.longBitsToDouble(n1));
+				return template.appendTo(sb, Double.longBitsToDouble(n0), Double.longBitsToDouble(n1), Double.longBitsToDouble(n2));
+			case FLOAT:
+				if (arity == 1) return template.appendTo(sb, Float.intBitsToFloat((int) n0));
+				if (arity == 2) return template.appendTo(sb, Float.intBitsToFloat((int) n0), Float.intBitsToFloat((int) n1));
+				return template.appendTo(sb, Float.intBitsToFloat((int) n0), Float.intBitsToFloat((int) n1), Float.intBitsToFloat((int) n2));
+			default:
+				if (arity == 1) return template.appendTo(sb, o0);
+				if (arity == 2) return template.appendTo(sb, o0, o1);
+				return template.appendTo(sb, o0, o1, o2);
+		}
+	}
+
+	/** A failing supplier is rendered as its exception, instead of replacing the exception being raised. */
+	private StringBuilder appendSupplied(final StringBuilder sb) {
+		if (o0 == null) return sb.append((String) null);
+		try {
+			return sb.append(((MessageSupplier) o0).get());
+		} catch (final RuntimeException e) {
+			return sb.append("message supplier failed: ").append(e);
+		}
+	}
+
+	/** Template and arguments do not match. Renders the pattern followed by the arguments, instead of failing on getMessage(). */
+	private StringBuilder appendMismatch(final StringBuilder sb) {
+		sb.append(template.getPattern()).append(" [");
+		for (int i = 0; i < arity; i++) {
+			if (i > 0) sb.append(", ");
+			switch (kind) {
+				case LONG: sb.append(i == 0 ? n0 : i == 1 ? n1 : n2); break;
+				case DOUBLE: sb.append(Double.longBitsToDouble(i == 0 ? n0 : i == 1 ? n1 : n2)); break;
+				case FLOAT: sb.append(Float.intBitsToFloat((int) (i == 0 ? n0 : i == 1 ? n1 : n2))); break;
+				default: sb.append(i == 0 ? o0 : i == 1 ? o1 : o2);
+			}
+		}
+		return sb.append(']');
+	}
+
+	/** Serializes only the rendered text, since arguments may not be serializable. */
+	private Object writeReplace() throws ObjectStreamException {
+		return rendered != null && template == null ? this : new Message(toString());
+	}
+
+	/** Same format as {@link Throwable#toString()}, with the given class name instead of the actual class. */
+	static String toString(final Throwable exception, final Class<?> type) {
+		final String message = exception.getLocalizedMessage();
+		return message == null ? type.getName() : type.getName() + ": " + message;
+	}
+}
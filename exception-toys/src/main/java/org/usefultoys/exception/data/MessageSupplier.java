@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+/**
+ * Provides a failure message only when the message of a failed check is requested.
+ * Same shape as <code>java.util.function.Supplier&lt;String&gt;</code>, so Java 8 callers may pass a lambda.
+ * <p>
+ * Example:
+ * <pre>
+ * Assert.Argument.check(order.isOpen(), new MessageSupplier() {
+ *   public String get() { return "order " + order.getId() + " must be open"; }
+ * });
+ * </pre>
+ *
+ * @author Daniel Felix Ferber
+ */
+public interface MessageSupplier {
+	/**
+	 * Called at most once per failed check, even if several threads request the message.
+	 * Called when the exception message is first requested, whatever the {@link Assert.TraceMode}.
+	 * If it throws, the message describes that exception instead.
+	 */
+	String get();
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A message pattern with <code>{}</code> placeholders, parsed once.
+ * Rendering appends the literal parts and the arguments to a {@link StringBuilder},
+ * with primitive arguments appended without boxing.
+ * A faster replacement for {@link String#format(String, Object...)} on failure paths.
+ * <p>
+ * Example:
+ * <pre>
+ * static final MessageTemplate RANGE = MessageTemplate.compile("{} must be in range [{}-{}]");
+ * </pre>
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class MessageTemplate implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String pattern;
+	/** Literal text before each placeholder, plus the text after the last placeholder. */
+	private final String[] parts;
+
+	private MessageTemplate(final String pattern, final String[] parts) {
+		this.pattern = pattern;
+		this.parts = parts;
+	}
+
+	/** Parses the pattern. Each <code>{}</code> is a placeholder for one argument. */
+	public static MessageTemplate compile(final String pattern) {
+		if (pattern == null) throw new IllegalArgumentException("pattern");
+		final List<String> parts = new ArrayList<String>();
+		int start = 0;
+		int index;
+		while ((index = pattern.indexOf("{}", start)) >= 0) {
+			parts.add(pattern.substring(start, index));
+			start = index + 2;
+		}
+		parts.add(pattern.substring(start));
+		return new MessageTemplate(pattern, parts.toArray(new String[parts.size()]));
+	}
+
+	/** Number of placeholders. */
+	public int getArity() {
+		return parts.length - 1;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	/** Literal text before the placeholder at given index, or after the last placeholder. */
+	String part(final int index) {
+		return parts[index];
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+	// ************************************************************************
+	// *** APPENDERS **********************************************************
+	// ************************************************************************
+
+	public StringBuilder appendTo(final StringBuilder sb, final long a) {
+		check(1);
+		return sb.append(parts[0]).append(a).append(parts[1]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final long a, final long b) {
+		check(2);
+		return sb.append(parts[0]).append(a).append(parts[1]).append(b).append(parts[2]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final long a, final long b, final long c) {
+		check(3);
+		return sb.append(parts[0]).append(a).append(parts[1]).append(b).append(parts[2]).append(c).append(parts[3]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final double a) {
+		check(1);
+		return sb.append(parts[0]).append(a).append(parts[1]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final double a, final double b) {
+		check(2);
+		return sb.append(parts[0]).append(a).append(parts[1]).append(b).append(parts[2]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final double a, final double b, final double c) {
+		check(3);
+		return sb.append(parts[0]).append(a).append(parts[1]).append(b).append(parts[2]).append(c).append(parts[3]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final float a) {
+		check(1);
+		return sb.append(parts[0]).append(a).append(parts[1]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final float a, final float b) {
+		check(2);
+		return sb.append(parts[0]).append(a).append(parts[1]).append(b).append(parts[2]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final float a, final float b, final float c) {
+		check(3);
+		return sb.append(parts[0]).append(a).append(parts[1]).append(b).append(parts[2]).append(c).append(parts[3]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final Object a) {
+		check(1);
+		return sb.append(parts[0]).append(a).append(parts[1]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final Object a, final Object b) {
+		check(2);
+		return sb.append(parts[0]).append(a).append(parts[1]).append(b).append(parts[2]);
+	}
+
+	public StringBuilder appendTo(final StringBuilder sb, final Object a, final Object b, final Object c) {
+		check(3);
+		return sb.append(parts[0]).append(a).append(parts[1]).append(b).append(parts[2]).append(c).append(parts[3]);
+	}
+
+	private void check(final int arity) {
+		if (parts.length - 1 != arity) throw new IllegalArgumentException(pattern + " expects " + (parts.length - 1) + " arguments");
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finds the first violating index of a large range by scanning chunks on several threads.
+ * Only used for categories that opted in with {@link Assert#setParallelThreshold(int)}.
+ * The calling thread scans chunks too, so nested scans from pool threads cannot starve.
+ * A chunk stops as soon as another chunk found a violation at a lower index, so the result is
+ * the same as a sequential scan.
+ * <p>
+ * Fork-join is not available on Java 6; this is the minimal equivalent for flat index ranges.
+ *
+ * @author Daniel Felix Ferber
+ */
+abstract class ParallelScan {
+	static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+	/** Chunks per thread, so threads that finish early take over work of slower ones. */
+	private static final int CHUNKS_PER_THREAD = 4;
+	/** Elements scanned between checks for a violation found by another thread. */
+	private static final int SLICE = 1 << 14;
+
+	private static ExecutorService pool;
+
+	private static synchronized ExecutorService pool() {
+		if (pool == null) {
+			pool = Executors.newFixedThreadPool(Math.max(1, PARALLELISM - 1), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(final Runnable runnable) {
+					final Thread thread = new Thread(runnable, "assert-scan-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return pool;
+	}
+
+	/** First violating index in <code>[from, to)</code>, or -1. */
+	abstract int scan(int from, int to);
+
+	/** First violating index in <code>[from, to)</code>, or -1. Scans sequentially if there is only one processor. */
+	final int run(final int from, final int to) {
+		if (PARALLELISM < 2) return scan(from, to);
+		final int chunks = PARALLELISM * CHUNKS_PER_THREAD;
+		final int chunkSize = (int) (((long) to - from + chunks - 1) / chunks);
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger first = new AtomicInteger(Integer.MAX_VALUE);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final CountDownLatch done = new CountDownLatch(chunks);
+		final Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int chunk;
+				while ((chunk = next.getAndIncrement()) < chunks) {
+					try {
+						final int start = from + chunk * chunkSize;
+						final int end = (int) Math.min(to, (long) start + chunkSize);
+						final int index = scanChunk(start, end, first);
+						if (index >= 0) lower(first, index);
+					} catch (final Throwable e) {
+						error.compareAndSet(null, e);
+					} finally {
+						done.countDown();
+					}
+				}
+			}
+		};
+		for (int i = 1; i < PARALLELISM; i++) pool().execute(worker);
+		worker.run();
+		awaitUninterruptibly(done);
+		final Throwable e = error.get();
+		if (e instanceof RuntimeException) throw (RuntimeException) e;
+		if (e instanceof Error) throw (Error) e;
+		final int result = first.get();
+		return result == Integer.MAX_VALUE ? -1 : result;
+	}
+
+	private int scanChunk(final int start, final int end, final AtomicInteger first) {
+		for (int slice = start; slice < end; ) {
+			if (first.get() < slice) return -1;
+			final int sliceEnd = end - slice > SLICE ? slice + SLICE : end;
+			final int index = scan(slice, sliceEnd);
+			if (index >= 0) return index;
+			slice = sliceEnd;
+		}
+		return -1;
+	}
+
+	private static void lower(final AtomicInteger first, final int index) {
+		int current;
+		while (index < (current = first.get())) {
+			if (first.compareAndSet(current, index)) return;
+		}
+	}
+
+	private static void awaitUninterruptibly(final CountDownLatch latch) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				latch.await();
+				break;
+			} catch (final InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+}
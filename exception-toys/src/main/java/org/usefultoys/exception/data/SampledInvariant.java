@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.usefultoys.exception.StripedCounter;
+
+/**
+ * Verifies an expensive check on a random fraction of calls only.
+ * Intended for invariants that examine a whole data structure on each operation.
+ * <p>
+ * The fraction starts at the given rate. It adapts to the measured cost of the evaluations,
+ * to keep the total time spent on them under a budget, as a fraction of one CPU, but never drops below a minimal rate.
+ * Adaptation is driven by time: while calls are skipped, the rate grows back again, so coverage recovers after a
+ * spike of expensive evaluations.
+ * A failed evaluation raises the exception of the category, like {@link Assert#check(boolean)}.
+ * <p>
+ * Example:
+ * <pre>
+ * private static final SampledInvariant balanced = new SampledInvariant(0.1, 0.01);
+ * ...
+ * balanced.check(isBalanced);
+ * </pre>
+ * {@link #getSampledCount()} and {@link #getSkippedCount()} tell the coverage actually achieved.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class SampledInvariant {
+	/** Random numbers are compared with the threshold in this range. */
+	private static final int ONE = 1 << 30;
+	/** How often the rate adapts to the budget. */
+	static final long WINDOW_NANOS = 100L * 1000 * 1000;
+	/** Skipped calls read the clock when the low bits of the random number are zero, ie. on 1 in 64 calls. */
+	private static final int CLOCK_MASK = 63;
+	/** Minimal rate if not given, unless the initial rate is lower. */
+	public static final double DEFAULT_MIN_RATE = 0.001;
+
+	/** State of a xorshift generator per thread. Much cheaper than a shared <code>java.util.Random</code>. */
+	private static final ThreadLocal<long[]> seeds = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			final long seed = (Thread.currentThread().getId() + 1) * 0x9E3779B97F4A7C15L ^ System.nanoTime();
+			return new long[] { seed == 0 ? 1 : seed };
+		}
+	};
+
+	private final Assert category;
+	private final int maxThreshold;
+	private final int minThreshold;
+	private final double budget;
+
+	/* Plain field: a stale rate for a while is harmless, and reading it must stay cheap. */
+	private int threshold;
+	private final AtomicLong spentNanos = new AtomicLong();
+	private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+	private final StripedCounter sampled = new StripedCounter();
+	private final StripedCounter skipped = new StripedCounter();
+
+	/**
+	 * Samples {@link Assert#Invariant} checks, with {@link #DEFAULT_MIN_RATE}.
+	 * @param rate initial and maximal fraction of calls that are verified, from 0 (exclusive) to 1
+	 * @param budget maximal fraction of one CPU spent verifying, from 0 (exclusive) to 1
+	 */
+	public SampledInvariant(double rate, double budget) {
+		this(Assert.Invariant, rate, budget);
+	}
+
+	/**
+	 * Samples checks of the given category, with {@link #DEFAULT_MIN_RATE}.
+	 * @param rate initial and maximal fraction of calls that are verified, from 0 (exclusive) to 1
+	 * @param budget maximal fraction of one CPU spent verifying, from 0 (exclusive) to 1
+	 */
+	public SampledInvariant(Assert category, double rate, double budget) {
+		this(category, rate, Math.min(rate, DEFAULT_MIN_RATE), budget);
+	}
+
+	/**
+	 * Samples checks of the given category.
+	 * @param rate initial and maximal fraction of calls that are verified, from 0 (exclusive) to 1
+	 * @param minRate fraction of calls that are verified even if over budget, from 0 (exclusive) to rate
+	 * @param budget maximal fraction of one CPU spent verifying, from 0 (exclusive) to 1
+	 */
+	public SampledInvariant(Assert category, double rate, double minRate, double budget) {
+		if (category == null) throw new IllegalArgumentException("category");
+		if (! (rate > 0 && rate <= 1)) throw new IllegalArgumentException("rate");
+		if (! (minRate > 0 && minRate <= rate)) throw new IllegalArgumentException("minRate");
+		if (! (budget > 0 && budget <= 1)) throw new IllegalArgumentException("budget");
+		this.category = category;
+		this.maxThreshold = thresholdOf(rate);
+		this.minThreshold = thresholdOf(minRate);
+		this.threshold = maxThreshold;
+		this.budget = budget;
+	}
+
+	private static int thresholdOf(double rate) {
+		return (int) Math.max(1, Math.min(ONE, Math.ceil(rate * ONE)));
+	}
+
+	private static int nextRandom() {
+		final long[] seed = seeds.get();
+		long x = seed[0];
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		seed[0] = x;
+		return (int) (x >>> 34);
+	}
+
+	/**
+	 * Evaluates the condition on a fraction of calls.
+	 * @return true if the condition holds or was not evaluated
+	 */
+	public boolean check(DeferredCondition condition) throws RuntimeException {
+		if (sample() && ! evaluate(condition)) throw category.exception();
+		return true;
+	}
+
+	/**
+	 * Evaluates the condition on a fraction of calls.
+	 * @return true if the condition holds or was not evaluated
+	 */
+	public boolean check(Object rule, DeferredCondition condition) throws RuntimeException {
+		if (sample() && ! evaluate(condition)) throw category.exception(rule);
+		return true;
+	}
+
+	private boolean sample() {
+		if (! category.isEnabled()) {
+			skipped.increment();
+			return false;
+		}
+		final int random = nextRandom();
+		if (random >= threshold) {
+			skipped.increment();
+			if ((random & CLOCK_MASK) == 0) adapt(System.nanoTime());
+			return false;
+		}
+		sampled.increment();
+		return true;
+	}
+
+	private boolean evaluate(DeferredCondition condition) {
+		final long start = System.nanoTime();
+		try {
+			return condition.evaluate();
+		} finally {
+			final long end = System.nanoTime();
+			spend(end - start);
+			adapt(end);
+		}
+	}
+
+	void spend(long nanos) {
+		spentNanos.addAndGet(nanos);
+	}
+
+	/*
+	 * Once per window, scales the rate by the ratio between allowed and spent time, within the minimal and initial rate.
+	 * Grows at most twice per window, so a few cheap evaluations do not cause a burst.
+	 */
+	void adapt(long now) {
+		final long start = windowStart.get();
+		final long elapsed = now - start;
+		if (elapsed < WINDOW_NANOS || ! windowStart.compareAndSet(start, now)) return;
+		final long spent = spentNanos.getAndSet(0);
+		final double allowed = budget * elapsed;
+		final double factor = spent == 0 ? 2.0 : Math.min(2.0, allowed / spent);
+		threshold = Math.max(minThreshold, Math.min(maxThreshold, thresholdOf(getRate() * factor)));
+	}
+
+	/** Current fraction of calls that are verified. */
+	public double getRate() {
+		return (double) threshold / ONE;
+	}
+
+	/** Calls that evaluated the condition. */
+	public long getSampledCount() {
+		return sampled.sum();
+	}
+
+	/** Calls that did not evaluate the condition, including all calls while the category is disabled. */
+	public long getSkippedCount() {
+		return skipped.sum();
+	}
+
+	/** Sets the counters to zero. Does not change the current rate. */
+	public void resetCounts() {
+		sampled.reset();
+		skipped.reset();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("sampled %d, skipped %d, rate %.4f", getSampledCount(), getSkippedCount(), getRate());
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.lang.reflect.Method;
+
+/**
+ * Tells whether an exception has suppressed exceptions, which exist only on Java 7 and later.
+ * This implementation calls <code>Throwable.getSuppressed()</code> by reflection, with a shared empty argument array.
+ * Without suppressed exceptions, Java 7 and 8 return a shared empty array, so the check allocates nothing;
+ * only an exception that got suppressed exceptions, about to be replaced, pays for a copy of them.
+ * On Java 9 and later, the multi-release jar replaces it by a direct call.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class Suppression {
+	private Suppression() {
+		// cannot create instance
+	}
+
+	/** <code>Throwable.getSuppressed()</code>, or <code>null</code> on Java 6. */
+	private static final Method getSuppressed = getSuppressedMethod();
+	/** Arguments of <code>getSuppressed()</code>, shared instead of a new varargs array on each call. */
+	private static final Object[] NO_ARGUMENTS = new Object[0];
+
+	private static Method getSuppressedMethod() {
+		try {
+			return Throwable.class.getMethod("getSuppressed");
+		} catch (final NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/** True if no exception was added to the exception by <code>addSuppressed</code>, eg. by try-with-resources. */
+	static boolean isEmpty(final Throwable exception) {
+		if (getSuppressed == null) return true;
+		try {
+			return ((Throwable[]) getSuppressed.invoke(exception, NO_ARGUMENTS)).length == 0;
+		} catch (final Exception e) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects all violations of a sequence of checks, instead of failing on the first one.
+ * Offers the same checks as {@link Assert}. At the end, {@link #validate()} raises one exception
+ * of the {@link Assert} category describing all violations.
+ * <p>
+ * Violations are recorded as raw values in arrays that are reused by the next validation on the same thread.
+ * Messages are rendered only if there are violations. Steady-state validation allocates only the small
+ * validator itself, which escape analysis usually removes.
+ * <p>
+ * Example:
+ * <pre>
+ * Assert.Argument.collect()
+ *   .notNull(dto.name)
+ *   .range(dto.age, 0, 150)
+ *   .check(Rule.EMAIL, isEmail(dto.email))
+ *   .validate();
+ * </pre>
+ * Each validation must end with {@link #validate()} or {@link #finish()}. Until then, nested validations on
+ * the same thread get new arrays. After the end, the validator rejects further calls with {@link IllegalStateException}.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class Validator {
+	private static final byte CHECK = 0;
+	private static final byte RULE = 1;
+	private static final byte NULL = 2;
+	private static final byte EQUAL = 3;
+	private static final byte EQUAL_OBJECT = 4;
+	private static final byte RANGE = 5;
+	private static final byte RANGE_OBJECT = 6;
+	private static final byte CONTAINS = 7;
+	private static final byte NON_NEGATIVE = 8;
+	private static final byte POSITIVE = 9;
+	private static final byte RANGE_INCLUSIVE = 10;
+	private static final byte FINITE = 11;
+
+	/*
+	 * Numbers are recorded as long values, or as the raw bits of double or float values. The number type is
+	 * combined with the kind of violation, so the message renders them as the equivalent Assert check does.
+	 */
+	private static final byte DOUBLE_VALUES = 0x20;
+	private static final byte FLOAT_VALUES = 0x40;
+	private static final byte TYPE_MASK = DOUBLE_VALUES | FLOAT_VALUES;
+
+	/** Values recorded per violation. */
+	private static final int SLOTS = 3;
+
+	/** Arrays reused by consecutive validations on the same thread. */
+	private static final class Records {
+		/** Incremented when a validation ends, so validators of ended validations can be told apart. */
+		int generation;
+		boolean busy;
+		int size;
+		byte[] kinds = new byte[8];
+		long[] numbers = new long[8 * SLOTS];
+		Object[] objects = new Object[8 * SLOTS];
+
+		void add(final int kind, final long n0, final long n1, final long n2, final Object o0, final Object o1, final Object o2) {
+			if (size == kinds.length) {
+				kinds = Arrays.copyOf(kinds, size * 2);
+				numbers = Arrays.copyOf(numbers, size * 2 * SLOTS);
+				objects = Arrays.copyOf(objects, size * 2 * SLOTS);
+			}
+			final int i = size * SLOTS;
+			kinds[size++] = (byte) kind;
+			numbers[i] = n0;
+			numbers[i + 1] = n1;
+			numbers[i + 2] = n2;
+			objects[i] = o0;
+			objects[i + 1] = o1;
+			objects[i + 2] = o2;
+		}
+
+		void release() {
+			Arrays.fill(objects, 0, size * SLOTS, null);
+			size = 0;
+			generation++;
+			busy = false;
+		}
+	}
+
+	private static final ThreadLocal<Records> perThread = new ThreadLocal<Records>() {
+		@Override protected Records initialValue() { return new Records(); }
+	};
+
+	private final Assert category;
+	private final Records records;
+	private final int generation;
+
+	private Validator(final Assert category, final Records records) {
+		this.category = category;
+		this.records = records;
+		this.generation = records.generation;
+		records.busy = true;
+	}
+
+	/** Starts a validation for the category, reusing the arrays of the current thread if not in use. */
+	public static Validator of(final Assert category) {
+		if (category == null) throw new IllegalArgumentException("category");
+		final Records records = perThread.get();
+		return new Validator(category, records.busy ? new Records() : records);
+	}
+
+	// ************************************************************************
+	// *** RECORDING **********************************************************
+	// ************************************************************************
+
+	/** Arrays of this validation; fails if the validation already ended. */
+	private Records records() {
+		if (records.generation != generation) throw new IllegalStateException("validation already ended");
+		return records;
+	}
+
+	private void add(final int kind, final long n0, final long n1, final long n2, final Object o0, final Object o1, final Object o2) {
+		records().add(kind, n0, n1, n2, o0, o1, o2);
+	}
+
+	/** A custom condition must be satisfied. */
+	public Validator check(final boolean condition) {
+		if (! condition) add(CHECK, 0, 0, 0, null, null, null);
+		return this;
+	}
+
+	/** A custom condition must be satisfied. */
+	public Validator check(final Object rule, final boolean condition) {
+		if (! condition) add(RULE, 0, 0, 0, rule, null, null);
+		return this;
+	}
+
+	/** Argument must not be <code>null</code>. */
+	public Validator notNull(final Object argument) {
+		if (argument == null) add(NULL, 0, 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Given value must be equal to the expected value. */
+	public Validator equal(final int value, final int expected) {
+		if (value != expected) add(EQUAL, value, expected, 0, null, null, null);
+		return this;
+	}
+
+	/** Given value must be equal to the expected value. */
+	public Validator equal(final long value, final long expected) {
+		if (value != expected) add(EQUAL, value, expected, 0, null, null, null);
+		return this;
+	}
+
+	/** Given value must be equal to the expected value. NaN is never equal. */
+	public Validator equal(final float value, final float expected) {
+		if (value != expected) add(EQUAL | FLOAT_VALUES, Float.floatToRawIntBits(value), Float.floatToRawIntBits(expected), 0, null, null, null);
+		return this;
+	}
+
+	/** Given value must be equal to the expected value. NaN is never equal. */
+	public Validator equal(final double value, final double expected) {
+		if (value != expected) add(EQUAL | DOUBLE_VALUES, Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(expected), 0, null, null, null);
+		return this;
+	}
+
+	/** Given value must be equal to the expected value. */
+	public <T> Validator equal(final T value, final T expected) {
+		if (value != expected && (value == null || ! value.equals(expected))) add(EQUAL_OBJECT, 0, 0, 0, value, expected, null);
+		return this;
+	}
+
+	/** Value must be within a range. Same bounds as {@link Assert#range(int, int, int)}. */
+	public Validator range(final int value, final int min, final int max) {
+		if (value <= min || value >= max) add(RANGE, value, min, max, null, null, null);
+		return this;
+	}
+
+	/** Value must be within a range. Same bounds as {@link Assert#range(long, long, long)}. */
+	public Validator range(final long value, final long min, final long max) {
+		if (value <= min || value >= max) add(RANGE, value, min, max, null, null, null);
+		return this;
+	}
+
+	/** Value must be within a range. Same bounds as {@link Assert#range(float, float, float)}. */
+	public Validator range(final float value, final float min, final float max) {
+		if (! (value > min && value < max)) add(RANGE | FLOAT_VALUES, Float.floatToRawIntBits(value), Float.floatToRawIntBits(min), Float.floatToRawIntBits(max), null, null, null);
+		return this;
+	}
+
+	/** Value must be within a range. Same bounds as {@link Assert#range(double, double, double)}. */
+	public Validator range(final double value, final double min, final double max) {
+		if (! (value > min && value < max)) add(RANGE | DOUBLE_VALUES, Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(min), Double.doubleToRawLongBits(max), null, null, null);
+		return this;
+	}
+
+	/** Value must be within a range, including the limits. */
+	public Validator rangeInclusive(final int value, final int min, final int max) {
+		if (value < min || value > max) add(RANGE_INCLUSIVE, value, min, max, null, null, null);
+		return this;
+	}
+
+	/** Value must be within a range, including the limits. */
+	public Validator rangeInclusive(final long value, final long min, final long max) {
+		if (value < min || value > max) add(RANGE_INCLUSIVE, value, min, max, null, null, null);
+		return this;
+	}
+
+	/** Value must be within a range, including the limits. */
+	public Validator rangeInclusive(final float value, final float min, final float max) {
+		if (! (value >= min && value <= max)) add(RANGE_INCLUSIVE | FLOAT_VALUES, Float.floatToRawIntBits(value), Float.floatToRawIntBits(min), Float.floatToRawIntBits(max), null, null, null);
+		return this;
+	}
+
+	/** Value must be within a range, including the limits. */
+	public Validator rangeInclusive(final double value, final double min, final double max) {
+		if (! (value >= min && value <= max)) add(RANGE_INCLUSIVE | DOUBLE_VALUES, Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(min), Double.doubleToRawLongBits(max), null, null, null);
+		return this;
+	}
+
+	/** Value must be within a range. Same bounds as {@link Assert#range(Comparable, Comparable, Comparable)}. */
+	public <T extends Comparable<T>> Validator range(final T value, final T min, final T max) {
+		if (value == null) add(NULL, 0, 0, 0, null, null, null);
+		else if (value.compareTo(min) < 0 || value.compareTo(max) > 0) add(RANGE_OBJECT, 0, 0, 0, value, min, max);
+		return this;
+	}
+
+	/** Collection must contain the value. */
+	public Validator contains(final Object value, final Collection<?> collection) {
+		if (! collection.contains(value)) add(CONTAINS, 0, 0, 0, value, null, null);
+		return this;
+	}
+
+	/** Value must be non negative (greater or equal to zero). */
+	public Validator nonNegative(final int value) {
+		if (value < 0) add(NON_NEGATIVE, value, 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Value must be non negative (greater or equal to zero). */
+	public Validator nonNegative(final long value) {
+		if (value < 0) add(NON_NEGATIVE, value, 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Value must be finite and non negative (greater or equal to zero). NaN and infinities are reported as not finite. */
+	public Validator nonNegative(final float value) {
+		if (! (value >= 0 && value <= Float.MAX_VALUE)) add(NON_NEGATIVE | FLOAT_VALUES, Float.floatToRawIntBits(value), 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Value must be finite and non negative (greater or equal to zero). NaN and infinities are reported as not finite. */
+	public Validator nonNegative(final double value) {
+		if (! (value >= 0 && value <= Double.MAX_VALUE)) add(NON_NEGATIVE | DOUBLE_VALUES, Double.doubleToRawLongBits(value), 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Value must be positive ( &gt; 0). */
+	public Validator positive(final int value) {
+		if (value <= 0) add(POSITIVE, value, 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Value must be positive ( &gt; 0). */
+	public Validator positive(final long value) {
+		if (value <= 0) add(POSITIVE, value, 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Value must be positive ( &gt; 0) and finite. NaN and infinities are reported as not finite. */
+	public Validator positive(final float value) {
+		if (! (value > 0 && value <= Float.MAX_VALUE)) add(POSITIVE | FLOAT_VALUES, Float.floatToRawIntBits(value), 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Value must be positive ( &gt; 0) and finite. NaN and infinities are reported as not finite. */
+	public Validator positive(final double value) {
+		if (! (value > 0 && value <= Double.MAX_VALUE)) add(POSITIVE | DOUBLE_VALUES, Double.doubleToRawLongBits(value), 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Value must not be NaN nor infinite. */
+	public Validator finite(final float value) {
+		if (! (Math.abs(value) <= Float.MAX_VALUE)) add(FINITE | FLOAT_VALUES, Float.floatToRawIntBits(value), 0, 0, null, null, null);
+		return this;
+	}
+
+	/** Value must not be NaN nor infinite. */
+	public Validator finite(final double value) {
+		if (! (Math.abs(value) <= Double.MAX_VALUE)) add(FINITE | DOUBLE_VALUES, Double.doubleToRawLongBits(value), 0, 0, null, null, null);
+		return this;
+	}
+
+	// ************************************************************************
+	// *** RESULT *************************************************************
+	// ************************************************************************
+
+	/** True if no violation was recorded so far. */
+	public boolean isValid() {
+		return records().size == 0;
+	}
+
+	/** Number of violations recorded so far. */
+	public int size() {
+		return records().size;
+	}
+
+	/** Message describing the violation at given index. */
+	public String getMessage(final int index) {
+		final Records records = records();
+		if (index < 0 || index >= records.size) throw new IndexOutOfBoundsException(Integer.toString(index));
+		final long[] numbers = records.numbers;
+		final Object[] objects = records.objects;
+		final int i = index * SLOTS;
+		final long n0 = numbers[i], n1 = numbers[i + 1], n2 = numbers[i + 2];
+		final Object o0 = objects[i], o1 = objects[i + 1], o2 = objects[i + 2];
+		final int kind = records.kinds[index];
+		switch (kind & ~TYPE_MASK) {
+			case CHECK: return "check failed";
+			case RULE: return String.valueOf(o0);
+			case NULL: return "null";
+			case EQUAL: return numbers(Assert.EQUAL, kind, 2, n0, n1, n2);
+			case EQUAL_OBJECT: return new Message(Assert.EQUAL, o0, o1).toString();
+			case RANGE: return numbers(Assert.RANGE, kind, 3, n0, n1, n2);
+			case RANGE_INCLUSIVE: return numbers(Assert.RANGE_INCLUSIVE, kind, 3, n0, n1, n2);
+			case RANGE_OBJECT: return new Message(Assert.RANGE_INCLUSIVE, o0, o1, o2).toString();
+			case CONTAINS: return new Message(Assert.CONTAINS, o0).toString();
+			case NON_NEGATIVE: return numbers(finite(kind, n0) ? Assert.NON_NEGATIVE : Assert.FINITE, kind, 1, n0, n1, n2);
+			case POSITIVE: return numbers(finite(kind, n0) ? Assert.POSITIVE : Assert.FINITE, kind, 1, n0, n1, n2);
+			case FINITE: return numbers(Assert.FINITE, kind, 1, n0, n1, n2);
+			default: throw new IllegalStateException();
+		}
+	}
+
+	/** True if the recorded number is finite; long values always are. */
+	private static boolean finite(final int kind, final long n) {
+		switch (kind & TYPE_MASK) {
+			case DOUBLE_VALUES: return Math.abs(Double.longBitsToDouble(n)) <= Double.MAX_VALUE;
+			case FLOAT_VALUES: return Math.abs(Float.intBitsToFloat((int) n)) <= Float.MAX_VALUE;
+			default: return true;
+		}
+	}
+
+	/** Renders the recorded numbers with their original type. */
+	private static String numbers(final MessageTemplate template, final int kind, final int arity, final long n0, final long n1, final long n2) {
+		final Message message;
+		switch (kind & TYPE_MASK) {
+			case DOUBLE_VALUES:
+				final double d0 = Double.longBitsToDouble(n0), d1 = Double.longBitsToDouble(n1), d2 = Double.longBitsToDouble(n2);
+				message = arity == 1 ? new Message(template, d0) : arity == 2 ? new Message(template, d0, d1) : new Message(template, d0, d1, d2);
+				break;
+			case FLOAT_VALUES:
+				final float f0 = Float.intBitsToFloat((int) n0), f1 = Float.intBitsToFloat((int) n1), f2 = Float.intBitsToFloat((int) n2);
+				message = arity == 1 ? new Message(template, f0) : arity == 2 ? new Message(template, f0, f1) : new Message(template, f0, f1, f2);
+				break;
+			default:
+				message = arity == 1 ? new Message(template, n0) : arity == 2 ? new Message(template, n0, n1) : new Message(template, n0, n1, n2);
+		}
+		return message.toString();
+	}
+
+	/**
+	 * Ends the validation. If there were violations, raises one exception of the category with all messages.
+	 * Never raises if the category is disabled (see {@link Assert#ARGUMENT_ENABLED}).
+	 * @return true if there were no violations or the category is disabled
+	 */
+	public boolean validate() throws RuntimeException {
+		final int size = records().size;
+		final String message;
+		try {
+			if (size == 0 || ! category.enabled()) return true;
+			final StringBuilder sb = new StringBuilder();
+			sb.append(size).append(size == 1 ? " violation: " : " violations: ");
+			for (int i = 0; i < size; i++) {
+				if (i > 0) sb.append("; ");
+				sb.append(getMessage(i));
+			}
+			message = sb.toString();
+		} finally {
+			records.release();
+		}
+		throw category.exception(message);
+	}
+
+	/**
+	 * Ends the validation without raising an exception.
+	 * @return messages of all violations, empty if there were no violations
+	 */
+	public List<String> finish() {
+		final int size = records().size;
+		try {
+			if (size == 0) return Collections.emptyList();
+			final List<String> messages = new ArrayList<String>(size);
+			for (int i = 0; i < size; i++) messages.add(getMessage(i));
+			return messages;
+		} finally {
+			records.release();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+/**
+ * Outcome of the non-throwing checks of {@link Assert}, like {@link Assert#testRange(int, int, int)}.
+ * Constants are shared, so testing does not allocate. Compare with <code>==</code>.
+ * <p>
+ * Example:
+ * <pre>
+ * for (Record r : batch) {
+ *   if (Assert.Argument.testRange(r.value, 0, 100) != Violation.NONE) continue;
+ *   ...
+ * }
+ * </pre>
+ * Use {@link Assert#failure(Violation)} to create the exception only when needed.
+ *
+ * @author Daniel Felix Ferber
+ */
+public enum Violation {
+	NONE("satisfied"),
+	FALSE("condition must be satisfied"),
+	NULL("must not be null"),
+	NOT_EQUAL("must be equal to expected value"),
+	OUT_OF_RANGE("must be in range"),
+	NOT_CONTAINED("collection must contain value"),
+	NEGATIVE("must not be negative"),
+	NOT_POSITIVE("must be positive"),
+	NOT_FINITE("must be finite");
+
+	private final String message;
+
+	private Violation(final String message) {
+		this.message = message;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return message;
+	}
+}
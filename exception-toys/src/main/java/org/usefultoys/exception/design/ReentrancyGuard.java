@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.design;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Detects code entered again before it was left, and raises {@link UnsupportedReentrancy}.
+ * Replaces hand-written <code>ThreadLocal&lt;Boolean&gt;</code> guards.
+ * <p>
+ * Example:
+ * <pre>
+ * private final ReentrancyGuard guard = ReentrancyGuard.perObject("Parser.parse");
+ * ...
+ * guard.enter();
+ * try {
+ *   ...
+ * } finally {
+ *   guard.exit();
+ * }
+ * </pre>
+ * {@link #perObject(String)} allows one thread at a time: it rejects reentrancy and concurrent calls.
+ * Entering costs a single compare-and-set, leaving a plain ordered write.
+ * {@link #perThread(String)} rejects reentrancy only, and lets several threads enter at the same time.
+ * It costs one thread local lookup to enter and one to leave.
+ * Leaving without having entered raises {@link UnsupportedCallOrder}.
+ *
+ * @author Daniel Felix Ferber
+ */
+public abstract class ReentrancyGuard {
+	private final String name;
+
+	private ReentrancyGuard(final String name) {
+		if (name == null) throw new IllegalArgumentException("name");
+		this.name = name;
+	}
+
+	/** Guard that allows one thread at a time. */
+	public static ReentrancyGuard perObject(final String name) {
+		return new PerObject(name);
+	}
+
+	/** Guard that allows each thread to enter once at a time. */
+	public static ReentrancyGuard perThread(final String name) {
+		return new PerThread(name);
+	}
+
+	/** Enters the guarded code. */
+	public abstract void enter() throws UnsupportedReentrancy;
+
+	/** Leaves the guarded code. Call in a finally block after {@link #enter()} succeeded. */
+	public abstract void exit() throws UnsupportedCallOrder;
+
+	/** True if the current thread has entered and not left yet. */
+	public abstract boolean isHeldByCurrentThread();
+
+	public final String getName() {
+		return name;
+	}
+
+	final UnsupportedReentrancy reentered(final Thread owner) {
+		if (owner == Thread.currentThread()) return new UnsupportedReentrancy(name + " was reentered by thread " + owner.getName());
+		final String ownerName = owner == null ? "another thread" : "thread " + owner.getName();
+		return new UnsupportedReentrancy(name + " was entered by " + Thread.currentThread().getName() + " while held by " + ownerName);
+	}
+
+	final UnsupportedCallOrder notEntered() {
+		return new UnsupportedCallOrder(name + " was left by thread " + Thread.currentThread().getName() + " without having entered");
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	private static final class PerObject extends ReentrancyGuard {
+		private final AtomicReference<Thread> owner = new AtomicReference<Thread>();
+
+		PerObject(final String name) {
+			super(name);
+		}
+
+		@Override
+		public void enter() throws UnsupportedReentrancy {
+			final Thread current = Thread.currentThread();
+			if (! owner.compareAndSet(null, current)) throw reentered(owner.get());
+		}
+
+		@Override
+		public void exit() throws UnsupportedCallOrder {
+			if (owner.get() != Thread.currentThread()) throw notEntered();
+			owner.lazySet(null);
+		}
+
+		@Override
+		public boolean isHeldByCurrentThread() {
+			return owner.get() == Thread.currentThread();
+		}
+	}
+
+	private static final class PerThread extends ReentrancyGuard {
+		/** Mutable, so entering and leaving do not call ThreadLocal.set() nor box a Boolean. */
+		private static final class State {
+			boolean entered;
+		}
+
+		private final ThreadLocal<State> state = new ThreadLocal<State>() {
+			@Override
+			protected State initialValue() {
+				return new State();
+			}
+		};
+
+		PerThread(final String name) {
+			super(name);
+		}
+
+		@Override
+		public void enter() throws UnsupportedReentrancy {
+			final State current = state.get();
+			if (current.entered) throw reentered(Thread.currentThread());
+			current.entered = true;
+		}
+
+		@Override
+		public void exit() throws UnsupportedCallOrder {
+			final State current = state.get();
+			if (! current.entered) throw notEntered();
+			current.entered = false;
+		}
+
+		@Override
+		public boolean isHeldByCurrentThread() {
+			return state.get().entered;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.design;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces the order of lifecycle methods (eg. init, start, stop) of a component, without locking.
+ * The state is an enum constant, kept as its ordinal in an atomic integer. Allowed transitions are declared once
+ * in a {@link Transitions} table, usually shared by all instances of the component.
+ * <p>
+ * Example:
+ * <pre>
+ * enum State { NEW, INITIALIZED, RUNNING, STOPPED }
+ * private static final StateMachine.Transitions&lt;State&gt; LIFECYCLE = StateMachine.transitions(State.class)
+ *   .allow(State.NEW, State.INITIALIZED)
+ *   .allow(State.INITIALIZED, State.RUNNING, State.STOPPED)
+ *   .allow(State.RUNNING, State.STOPPED);
+ * private final StateMachine&lt;State&gt; state = new StateMachine&lt;State&gt;("Server", LIFECYCLE, State.NEW);
+ *
+ * public void start() { state.transition(State.INITIALIZED, State.RUNNING); ... }
+ * public void handle(Request r) { state.require(State.RUNNING); ... }
+ * </pre>
+ * A transition is a single compare-and-set; {@link #require(Enum)} and {@link #is(Enum)} read the state only.
+ * <p>
+ * States are assumed to be declared in lifecycle order. If the actual state comes before the expected one,
+ * a required step was skipped and {@link TemporalDependency} is raised; otherwise (a step repeated, or a call
+ * after the component moved on) {@link UnsupportedCallOrder} is raised. Both name the expected and actual states.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class StateMachine<S extends Enum<S>> {
+
+	/** Allowed transitions between states of an enum with at most 64 constants. */
+	public static final class Transitions<S extends Enum<S>> {
+		private final S[] states;
+		/** Bit <code>t</code> of <code>allowed[f]</code> is set if state <code>f</code> may move to state <code>t</code>. */
+		private final long[] allowed;
+
+		private Transitions(final Class<S> type) {
+			this.states = type.getEnumConstants();
+			if (states.length > 64) throw new IllegalArgumentException("More than 64 states: " + type.getName());
+			this.allowed = new long[states.length];
+		}
+
+		/** Allows moving from one state to another. */
+		public Transitions<S> allow(final S from, final S to) {
+			allowed[from.ordinal()] |= 1L << to.ordinal();
+			return this;
+		}
+
+		/** Allows moving from one state to each of the given states. */
+		public Transitions<S> allow(final S from, final S... to) {
+			for (final S target : to) allow(from, target);
+			return this;
+		}
+	}
+
+	/** Empty table of transitions for the states of the enum. */
+	public static <S extends Enum<S>> Transitions<S> transitions(final Class<S> type) {
+		if (type == null) throw new IllegalArgumentException("type");
+		return new Transitions<S>(type);
+	}
+
+	private final String name;
+	private final S[] states;
+	/** Copy of the table, so later changes to the table do not affect this machine. */
+	private final long[] allowed;
+	private final AtomicInteger state;
+
+	public StateMachine(final String name, final Transitions<S> transitions, final S initial) {
+		if (name == null) throw new IllegalArgumentException("name");
+		if (transitions == null) throw new IllegalArgumentException("transitions");
+		if (initial == null) throw new IllegalArgumentException("initial");
+		this.name = name;
+		this.states = transitions.states;
+		this.allowed = transitions.allowed.clone();
+		this.state = new AtomicInteger(initial.ordinal());
+	}
+
+	/** Current state. */
+	public S get() {
+		return states[state.get()];
+	}
+
+	/** True if the current state is the given one. */
+	public boolean is(final S expected) {
+		return state.get() == expected.ordinal();
+	}
+
+	/** The current state must be the given one. */
+	public void require(final S expected) throws TemporalDependency, UnsupportedCallOrder {
+		final int actual = state.get();
+		if (actual != expected.ordinal()) throw unexpected(expected.ordinal(), actual);
+	}
+
+	/**
+	 * Moves from the expected state to the target state.
+	 * Fails if the current state is not the expected one, including when another thread moved first.
+	 */
+	public void transition(final S from, final S to) throws TemporalDependency, UnsupportedCallOrder {
+		if (! isAllowed(from.ordinal(), to.ordinal())) throw new IllegalArgumentException(name + ": transition " + from + " -> " + to + " is not declared");
+		if (! state.compareAndSet(from.ordinal(), to.ordinal())) throw unexpected(from.ordinal(), state.get());
+	}
+
+	/**
+	 * Moves from the current state to the target state, if the table allows it.
+	 * Retries only if another thread changed the state concurrently.
+	 * @return the state before the transition
+	 */
+	public S moveTo(final S to) throws TemporalDependency, UnsupportedCallOrder {
+		final int target = to.ordinal();
+		while (true) {
+			final int current = state.get();
+			if (! isAllowed(current, target)) throw notAllowed(current, target);
+			if (state.compareAndSet(current, target)) return states[current];
+		}
+	}
+
+	private boolean isAllowed(final int from, final int to) {
+		return (allowed[from] & (1L << to)) != 0;
+	}
+
+	private RuntimeException unexpected(final int expected, final int actual) {
+		final String message = name + " expected state " + states[expected] + ", but was " + states[actual];
+		return actual < expected ? new TemporalDependency(message) : new UnsupportedCallOrder(message);
+	}
+
+	private RuntimeException notAllowed(final int current, final int target) {
+		final List<S> sources = new ArrayList<S>();
+		int earliest = Integer.MAX_VALUE;
+		for (int from = 0; from < allowed.length; from++) {
+			if (isAllowed(from, target)) {
+				sources.add(states[from]);
+				earliest = Math.min(earliest, from);
+			}
+		}
+		final String expected = sources.size() == 1 ? sources.get(0).toString() : Arrays.toString(sources.toArray());
+		final String message = name + " cannot move to " + states[target] + ": expected state " + expected + ", but was " + states[current];
+		return current < earliest ? new TemporalDependency(message) : new UnsupportedCallOrder(message);
+	}
+
+	@Override
+	public String toString() {
+		return name + "[" + get() + "]";
+	}
+}
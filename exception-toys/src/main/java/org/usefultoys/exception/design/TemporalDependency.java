@@ -15,6 +15,9 @@
  */
 package org.usefultoys.exception.design;
 
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
+
 /**
  * The control flow attempted to execute code without having first executed a
  * dependency that was designed to be executed first. An ideal design should not
@@ -26,6 +29,11 @@ package org.usefultoys.exception.design;
 public class TemporalDependency extends RuntimeException {
 	private static final long serialVersionUID = 1L;
 
-	public TemporalDependency() { super(); }
-	public TemporalDependency(String message) { super(message); }
+	public TemporalDependency() { super(); ExceptionStatistics.count(this); }
+	public TemporalDependency(String message) { super(message); ExceptionStatistics.count(this); }
+
+	@Override
+	public Throwable fillInStackTrace() {
+		return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;
+	}
 }
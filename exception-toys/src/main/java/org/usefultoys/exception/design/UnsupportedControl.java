@@ -15,6 +15,9 @@
  */
 package org.usefultoys.exception.design;
 
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
+
 /**
  * Common class for errors caused by control flow (execution) achieving a state
  * that should not be called by convention. This exception supplements the
@@ -26,8 +29,13 @@ package org.usefultoys.exception.design;
 class UnsupportedControl extends IllegalStateException {
 	private static final long serialVersionUID = 1L;
 	
-	protected UnsupportedControl() { super(); }
-	protected UnsupportedControl(String message, Throwable cause) { super(message, cause); }
-	protected UnsupportedControl(String message) { super(message); }
-	protected UnsupportedControl(Throwable cause) { super(cause); }
+	protected UnsupportedControl() { super(); ExceptionStatistics.count(this); }
+	protected UnsupportedControl(String message, Throwable cause) { super(message, cause); ExceptionStatistics.count(this); }
+	protected UnsupportedControl(String message) { super(message); ExceptionStatistics.count(this); }
+	protected UnsupportedControl(Throwable cause) { super(cause); ExceptionStatistics.count(this); }
+
+	@Override
+	public Throwable fillInStackTrace() {
+		return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;
+	}
 }
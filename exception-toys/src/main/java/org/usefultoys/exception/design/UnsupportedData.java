@@ -15,6 +15,8 @@
  */
 package org.usefultoys.exception.design;
 
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
 import org.usefultoys.exception.data.IllegalState;
 
 
@@ -28,6 +30,11 @@ import org.usefultoys.exception.data.IllegalState;
 public class UnsupportedData extends IllegalState {
 	private static final long serialVersionUID = 1L;
 
-	public UnsupportedData() { super(); }
-	public UnsupportedData(String message) { super(message); }
+	public UnsupportedData() { super(); ExceptionStatistics.count(this); }
+	public UnsupportedData(String message) { super(message); ExceptionStatistics.count(this); }
+
+	@Override
+	public Throwable fillInStackTrace() {
+		return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;
+	}
 }
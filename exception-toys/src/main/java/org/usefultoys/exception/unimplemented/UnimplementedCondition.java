@@ -15,6 +15,8 @@
  */
 package org.usefultoys.exception.unimplemented;
 
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
 
 /**
  * Marks a condition that has not yet been implemented in a <code>if</code> or <code>switch</code> statement.
@@ -48,9 +50,16 @@ public class UnimplementedCondition extends Unimplemented {
 
     public UnimplementedCondition() {
         super();
+        ExceptionStatistics.count(this);
     }
 
     public UnimplementedCondition(String message) {
         super(message);
+        ExceptionStatistics.count(this);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;
     }
 }
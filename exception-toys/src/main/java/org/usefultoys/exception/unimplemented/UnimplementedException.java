@@ -15,6 +15,8 @@
  */
 package org.usefultoys.exception.unimplemented;
 
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
 
 /**
  * Marks a declared exception that must be handled but is not yet known how to
@@ -38,9 +40,16 @@ public class UnimplementedException extends Unimplemented {
 
     public UnimplementedException(Throwable e) {
         super(e);
+        ExceptionStatistics.count(this);
     }
 
     public UnimplementedException(String message, Throwable e) {
         super(message, e);
+        ExceptionStatistics.count(this);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;
     }
 }
@@ -15,6 +15,8 @@
  */
 package org.usefultoys.exception.unimplemented;
 
+import org.usefultoys.exception.ExceptionStatistics;
+import org.usefultoys.exception.StackTraceSampler;
 
 /**
  * Marks a method that has not yet been implemented. Signals that there is
@@ -27,9 +29,16 @@ public class UnimplementedMethod extends Unimplemented {
 
     public UnimplementedMethod() {
         super();
+        ExceptionStatistics.count(this);
     }
 
     public UnimplementedMethod(String message) {
         super(message);
+        ExceptionStatistics.count(this);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return StackTraceSampler.capture(this) ? StackTraceSampler.captured(super.fillInStackTrace()) : this;
     }
 }
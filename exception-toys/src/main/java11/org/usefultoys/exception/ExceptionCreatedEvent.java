@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for an exception created by the library or a failed {@link org.usefultoys.exception.data.Assert} check.
+ * Disabled, and without stack trace, by default, so recordings with the default settings pay nothing for it.
+ * Enable it in the recording settings with <code>org.usefultoys.exception.ExceptionCreated#enabled=true</code>,
+ * and <code>#stackTrace=true</code> for the stack trace (the throw site is recorded either way).
+ * In {@link org.usefultoys.exception.data.Assert.TraceMode#SHARED} mode, only new shared exceptions are reported, not each rethrow.
+ *
+ * @author Daniel Felix Ferber
+ */
+@Name(ExceptionCreatedEvent.NAME)
+@Label("Exception Created")
+@Category({ "Useful Toys", "Exceptions" })
+@Description("Exception created by exception-toys, or failed Assert check")
+@Enabled(false)
+@StackTrace(false)
+final class ExceptionCreatedEvent extends Event {
+	static final String NAME = "org.usefultoys.exception.ExceptionCreated";
+
+	@Label("Category")
+	@Description("Assert category, or package of the exception")
+	String category;
+
+	@Label("Exception Class")
+	Class<?> exceptionClass;
+
+	@Label("Detail")
+	@Description("Rule, message template or message")
+	String detail;
+
+	@Label("Throw Site")
+	@Description("First frame outside the library")
+	String site;
+}
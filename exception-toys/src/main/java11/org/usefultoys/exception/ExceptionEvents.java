@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.lang.reflect.Modifier;
+import java.security.CodeSource;
+import java.util.Optional;
+
+/**
+ * Reports created exceptions to the Java Flight Recorder, as <code>org.usefultoys.exception.ExceptionCreated</code> events.
+ * Called for exceptions of the <code>bug</code>, <code>design</code> and <code>unimplemented</code> packages
+ * and for failed {@link org.usefultoys.exception.data.Assert} checks.
+ * <p>
+ * Java 11 implementation, from the multi-release jar. While no recording enables the event,
+ * reporting costs one check of the event state; the event object does not escape and is not allocated.
+ * Category, detail and throw site are computed only for committed events.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class ExceptionEvents {
+	private ExceptionEvents() {
+		// cannot create instance
+	}
+
+	private static final StackWalker walker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+	/** Location of the base classes and of the Java 11 classes. Same jar when packaged, distinct directories when built. */
+	private static final String LIBRARY = location(ExceptionStatistics.class);
+	private static final String VERSIONED = location(ExceptionEvents.class);
+
+	/**
+	 * Reports the exception, if events are enabled.
+	 * @param exception the exception just created
+	 * @param category the {@link org.usefultoys.exception.data.Assert} category, or <code>null</code> for the package of the exception
+	 * @param detail the rule or message template, or <code>null</code> for the exception message
+	 * @return the exception
+	 */
+	public static <T extends Throwable> T created(final T exception, final String category, final Object detail) {
+		final ExceptionCreatedEvent event = new ExceptionCreatedEvent();
+		if (event.shouldCommit()) {
+			final Class<?> type = publicClass(exception.getClass());
+			event.category = category != null ? category : packageName(type);
+			event.exceptionClass = type;
+			event.detail = detail != null ? String.valueOf(detail) : exception.getMessage();
+			event.site = site();
+			event.commit();
+		}
+		return exception;
+	}
+
+	/** Private subclasses (eg. stackless Assert exceptions) are reported as the public class they extend. */
+	private static Class<?> publicClass(Class<?> type) {
+		while (! Modifier.isPublic(type.getModifiers())) type = type.getSuperclass();
+		return type;
+	}
+
+	private static String packageName(final Class<?> type) {
+		final String name = type.getPackageName();
+		return name.substring(name.lastIndexOf('.') + 1);
+	}
+
+	/** First frame whose class does not come from the library jar (or classes directory). */
+	private static String site() {
+		final Optional<StackWalker.StackFrame> frame = walker.walk(frames -> frames.filter(f -> ! isLibrary(f.getDeclaringClass())).findFirst());
+		return frame.isPresent() ? frame.get().toStackTraceElement().toString() : null;
+	}
+
+	private static boolean isLibrary(final Class<?> type) {
+		final String location = location(type);
+		return location != null && (location.equals(LIBRARY) || location.equals(VERSIONED));
+	}
+
+	private static String location(final Class<?> type) {
+		final CodeSource source = type.getProtectionDomain().getCodeSource();
+		return source == null || source.getLocation() == null ? null : source.getLocation().toExternalForm();
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the default worker threads of {@link AsyncVerifier}.
+ * Java 21 implementation, from the multi-release jar: virtual threads, which are always daemon threads.
+ * Workers mostly wait on the queue, so they do not hold a platform thread while idle.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class WorkerThreads {
+	private WorkerThreads() {
+		// cannot create instance
+	}
+
+	/** Factory of virtual threads named with the prefix and a sequence number, starting at 1. */
+	static ThreadFactory factory(final String prefix) {
+		return Thread.ofVirtual().name(prefix, 1).factory();
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter that scales with concurrent updates.
+ * Java 9 implementation, from the multi-release jar: delegates to {@link LongAdder},
+ * which adds cells only under contention and pads them as the JVM requires.
+ *
+ * @author Daniel Felix Ferber
+ */
+public final class StripedCounter {
+	private final LongAdder adder = new LongAdder();
+
+	public void increment() {
+		adder.increment();
+	}
+
+	public void add(long delta) {
+		adder.add(delta);
+	}
+
+	/** Current total. Not an atomic snapshot if there are concurrent updates. */
+	public long sum() {
+		return adder.sum();
+	}
+
+	/** Sets the total to zero. Concurrent updates may be lost. */
+	public void reset() {
+		adder.reset();
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(sum());
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Finds the throw site of an exception being created, for {@link StackTraceSampler}.
+ * Java 9 implementation, from the multi-release jar: walks only the top frames,
+ * up to the first frame outside the constructors and <code>fillInStackTrace()</code> of the exception.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class ThrowSite {
+	private ThrowSite() {
+		// cannot create instance
+	}
+
+	private static final StackWalker walker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+	private static final Function<Stream<StackWalker.StackFrame>, StackTraceElement> firstOutside =
+		frames -> frames.filter(frame -> ! isCreation(frame)).findFirst().map(StackWalker.StackFrame::toStackTraceElement).orElse(null);
+
+	/** Frame that creates the exception being created. */
+	static StackTraceElement current() {
+		return walker.walk(firstOutside);
+	}
+
+	private static boolean isCreation(final StackWalker.StackFrame frame) {
+		final Class<?> type = frame.getDeclaringClass();
+		if (type == ThrowSite.class || type == StackTraceSampler.class) return true;
+		if (! Throwable.class.isAssignableFrom(type)) return false;
+		final String method = frame.getMethodName();
+		return method.equals("<init>") || method.equals("fillInStackTrace");
+	}
+}
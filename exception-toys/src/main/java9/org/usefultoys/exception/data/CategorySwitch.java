@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+
+/**
+ * Runtime switches of the {@link Assert} categories disabled at startup.
+ * Java 9 implementation, from the multi-release jar: each switch is a {@link MutableCallSite} invoked through a
+ * static final handle. The JIT inlines its current target as a constant, so checks of a disabled category fold to
+ * nothing, as without switches. Switching replaces the target, and the JVM deoptimizes the code compiled against the
+ * previous one, also inside running loops.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class CategorySwitch {
+	private CategorySwitch() {
+		// cannot create instance
+	}
+
+	private static final MethodHandle OFF = MethodHandles.constant(boolean.class, Boolean.FALSE);
+	private static final MethodHandle ON = MethodHandles.constant(boolean.class, Boolean.TRUE);
+
+	private static final MutableCallSite ARGUMENT_SITE = new MutableCallSite(OFF);
+	private static final MutableCallSite ATTRIBUTE_SITE = new MutableCallSite(OFF);
+	private static final MutableCallSite ENVIRONMENT_SITE = new MutableCallSite(OFF);
+	private static final MutableCallSite PRECONDITION_SITE = new MutableCallSite(OFF);
+	private static final MutableCallSite POSCONDITION_SITE = new MutableCallSite(OFF);
+	private static final MutableCallSite INVARIANT_SITE = new MutableCallSite(OFF);
+
+	private static final MethodHandle ARGUMENT = ARGUMENT_SITE.dynamicInvoker();
+	private static final MethodHandle ATTRIBUTE = ATTRIBUTE_SITE.dynamicInvoker();
+	private static final MethodHandle ENVIRONMENT = ENVIRONMENT_SITE.dynamicInvoker();
+	private static final MethodHandle PRECONDITION = PRECONDITION_SITE.dynamicInvoker();
+	private static final MethodHandle POSCONDITION = POSCONDITION_SITE.dynamicInvoker();
+	private static final MethodHandle INVARIANT = INVARIANT_SITE.dynamicInvoker();
+
+	/** True if categories can be switched on at runtime. */
+	static boolean isSupported() {
+		return true;
+	}
+
+	/*
+	 * Each handle is invoked directly from its own method: the JIT folds the target only if the handle is a constant
+	 * at the call, which a handle passed as argument is not guaranteed to be. The targets never throw.
+	 */
+	static boolean argument() {
+		try { return (boolean) ARGUMENT.invokeExact(); } catch (final Throwable e) { throw new IllegalStateException(e); }
+	}
+
+	static boolean attribute() {
+		try { return (boolean) ATTRIBUTE.invokeExact(); } catch (final Throwable e) { throw new IllegalStateException(e); }
+	}
+
+	static boolean environment() {
+		try { return (boolean) ENVIRONMENT.invokeExact(); } catch (final Throwable e) { throw new IllegalStateException(e); }
+	}
+
+	static boolean precondition() {
+		try { return (boolean) PRECONDITION.invokeExact(); } catch (final Throwable e) { throw new IllegalStateException(e); }
+	}
+
+	static boolean poscondition() {
+		try { return (boolean) POSCONDITION.invokeExact(); } catch (final Throwable e) { throw new IllegalStateException(e); }
+	}
+
+	static boolean invariant() {
+		try { return (boolean) INVARIANT.invokeExact(); } catch (final Throwable e) { throw new IllegalStateException(e); }
+	}
+
+	/** True if the category (eg. <code>"Invariant"</code>) was switched on at runtime. */
+	static boolean isOn(final String category) {
+		return site(category).getTarget() == ON;
+	}
+
+	/** Switches a category on or off for all threads. Rare and slow: the JVM deoptimizes the checks compiled so far. */
+	static synchronized void set(final String category, final boolean on) {
+		final MutableCallSite site = site(category);
+		site.setTarget(on ? ON : OFF);
+		MutableCallSite.syncAll(new MutableCallSite[] { site });
+	}
+
+	private static MutableCallSite site(final String category) {
+		if ("Argument".equals(category)) return ARGUMENT_SITE;
+		if ("Attribute".equals(category)) return ATTRIBUTE_SITE;
+		if ("Environment".equals(category)) return ENVIRONMENT_SITE;
+		if ("Precondition".equals(category)) return PRECONDITION_SITE;
+		if ("Poscondition".equals(category)) return POSCONDITION_SITE;
+		if ("Invariant".equals(category)) return INVARIANT_SITE;
+		throw new IllegalArgumentException("Unknown category: " + category);
+	}
+}
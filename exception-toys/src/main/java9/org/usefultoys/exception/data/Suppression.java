@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+/**
+ * Tells whether an exception has suppressed exceptions.
+ * Java 9 implementation, from the multi-release jar: calls <code>Throwable.getSuppressed()</code> directly.
+ *
+ * @author Daniel Felix Ferber
+ */
+final class Suppression {
+	private Suppression() {
+		// cannot create instance
+	}
+
+	/** True if no exception was added to the exception by <code>addSuppressed</code>, eg. by try-with-resources. */
+	static boolean isEmpty(final Throwable exception) {
+		return exception.getSuppressed().length == 0;
+	}
+}
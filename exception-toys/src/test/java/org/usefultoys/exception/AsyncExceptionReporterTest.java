@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.usefultoys.exception.AsyncExceptionReporter.Overflow;
+
+public class AsyncExceptionReporterTest {
+
+    private final PrintStream stream = new PrintStream(new ByteArrayOutputStream());
+
+    @Test
+    public void dropNewest() throws InterruptedException {
+        final AsyncExceptionReporter reporter = new AsyncExceptionReporter(stream, 2, Overflow.DROP_NEWEST);
+        assertTrue(reporter.report(new RuntimeException("1")));
+        assertTrue(reporter.report(new RuntimeException("2")));
+        assertFalse(reporter.report(new RuntimeException("3")));
+        assertEquals(1, reporter.getDroppedCount());
+        reporter.start().close(5, TimeUnit.SECONDS);
+        assertEquals(2, reporter.getReportedCount());
+    }
+
+    @Test
+    public void dropOldest() throws InterruptedException {
+        final AsyncExceptionReporter reporter = new AsyncExceptionReporter(stream, 2, Overflow.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(reporter.report(new RuntimeException()));
+        }
+        assertEquals(3, reporter.getDroppedCount());
+        assertEquals(2, reporter.getPendingCount());
+        reporter.start().close(5, TimeUnit.SECONDS);
+        assertEquals(2, reporter.getReportedCount());
+    }
+
+    @Test
+    public void flushesOnClose() throws InterruptedException {
+        final AsyncExceptionReporter reporter = new AsyncExceptionReporter(stream, 16, Overflow.BLOCK).start();
+        for (int i = 0; i < 100; i++) {
+            reporter.report(new RuntimeException());
+        }
+        assertTrue(reporter.close(5, TimeUnit.SECONDS));
+        assertEquals(100, reporter.getReportedCount());
+        assertEquals(0, reporter.getDroppedCount());
+        assertFalse(reporter.report(new RuntimeException()));
+    }
+
+    @Test
+    public void closeBeforeStartWritesPending() throws InterruptedException {
+        final AsyncExceptionReporter reporter = new AsyncExceptionReporter(stream, 16, Overflow.BLOCK);
+        reporter.report(new RuntimeException());
+        reporter.report(new RuntimeException());
+        assertTrue(reporter.close(5, TimeUnit.SECONDS));
+        assertEquals(2, reporter.getReportedCount());
+    }
+
+    @Test(timeout = 5000)
+    public void closeWithZeroTimeoutDoesNotWait() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final PrintStream blocked = new PrintStream(new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+        });
+        final AsyncExceptionReporter reporter = new AsyncExceptionReporter(blocked, 16, Overflow.BLOCK).start();
+        reporter.report(new RuntimeException());
+        assertFalse(reporter.close(0, TimeUnit.SECONDS));
+        assertFalse(reporter.close(1, TimeUnit.NANOSECONDS));
+        release.countDown();
+        assertTrue(reporter.close(5, TimeUnit.SECONDS));
+        assertEquals(1, reporter.getReportedCount());
+    }
+}
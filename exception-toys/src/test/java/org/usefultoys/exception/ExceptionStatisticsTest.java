@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.usefultoys.exception.bug.ImpossibleCondition;
+import org.usefultoys.exception.data.Assert;
+import org.usefultoys.exception.design.UnsupportedCondition;
+
+public class ExceptionStatisticsTest {
+
+    private static long classCount(final Class<?> type) {
+        final Long count = ExceptionStatistics.getClassCounts().get(type.getName());
+        return count == null ? 0 : count.longValue();
+    }
+
+    private static long categoryCount(final String category) {
+        final Long count = ExceptionStatistics.getCategoryCounts().get(category);
+        return count == null ? 0 : count.longValue();
+    }
+
+    @Test
+    public void countsByClass() {
+        final long impossible = classCount(ImpossibleCondition.class);
+        final long unsupported = classCount(UnsupportedCondition.class);
+        new ImpossibleCondition();
+        new ImpossibleCondition("message");
+        new UnsupportedCondition();
+        assertEquals(impossible + 2, classCount(ImpossibleCondition.class));
+        assertEquals(unsupported + 1, classCount(UnsupportedCondition.class));
+    }
+
+    @Test
+    public void countsByCategory() {
+        final long precondition = categoryCount("Precondition");
+        try {
+            Assert.Precondition.check(false);
+        } catch (RuntimeException e) {
+            // expected
+        }
+        try {
+            new Assert.Precondition().positive(0);
+        } catch (RuntimeException e) {
+            // expected
+        }
+        assertEquals(precondition + 2, categoryCount("Precondition"));
+    }
+
+    @Test
+    public void countsFromManyThreads() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) counter.increment();
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) thread.join();
+        assertEquals(80000, counter.sum());
+    }
+
+    @Test
+    public void registersMBean() throws Exception {
+        ExceptionStatistics.registerMBean();
+        ExceptionStatistics.registerMBean();
+        try {
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(ExceptionStatistics.OBJECT_NAME)));
+        } finally {
+            ExceptionStatistics.unregisterMBean();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ExceptionThrottleTest {
+
+    private static RuntimeException failure(final int id) {
+        return new RuntimeException("Request " + id + " failed", new IllegalStateException("connection refused"));
+    }
+
+    @Test
+    public void sameFingerprintIgnoresNumbers() {
+        assertEquals(ExceptionFingerprint.of(failure(1)), ExceptionFingerprint.of(failure(12345)));
+        assertEquals("Request # failed", ExceptionFingerprint.template("Request 12345 failed"));
+    }
+
+    @Test
+    public void reportsFirstThenSummary() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final PrintStream stream = new PrintStream(out);
+        final ExceptionThrottle throttle = new ExceptionThrottle(16, 1, TimeUnit.HOURS, 5);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i == 0, throttle.report(stream, failure(i)));
+        }
+        final int fullLength = out.size();
+        throttle.flush(stream);
+        assertTrue(out.toString().substring(fullLength).contains("seen 999 more times"));
+        assertEquals(1, throttle.size());
+    }
+
+    @Test
+    public void boundedTable() {
+        final PrintStream stream = new PrintStream(new ByteArrayOutputStream());
+        final ExceptionThrottle throttle = new ExceptionThrottle(4, 1, TimeUnit.HOURS, 5);
+        for (int i = 0; i < 100; i++) {
+            throttle.report(stream, new RuntimeException("type " + (char) ('a' + i % 26)));
+        }
+        assertTrue(throttle.size() <= 4);
+    }
+
+    @Test
+    public void evictionWritesPendingSummary() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final PrintStream stream = new PrintStream(out);
+        final ExceptionThrottle throttle = new ExceptionThrottle(1, 1, TimeUnit.HOURS, 5);
+        for (int i = 0; i < 3; i++) throttle.report(stream, new RuntimeException("type a"));
+        final int fullLength = out.size();
+        assertTrue(throttle.report(stream, new IllegalStateException("type b")));
+        assertEquals(1, throttle.size());
+        assertTrue(out.toString().substring(fullLength).contains("type a: seen 2 more times"));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.usefultoys.exception.bug.ImpossibleCondition;
+import org.usefultoys.exception.data.Assert;
+import org.usefultoys.exception.data.IllegalArgumentData;
+
+public class StackTraceSamplerTest {
+
+    @After
+    public void disable() {
+        StackTraceSampler.disable();
+    }
+
+    private static String last(final Throwable e) {
+        final StackTraceElement[] trace = e.getStackTrace();
+        return trace[trace.length - 1].toString();
+    }
+
+    @Test
+    public void fullTraceWhenDisabled() {
+        final ImpossibleCondition e = new ImpossibleCondition();
+        assertTrue(e.getStackTrace().length > 1);
+        assertTrue(! last(e).contains("sample"));
+    }
+
+    @Test
+    public void samplesFirstThenEvery() {
+        StackTraceSampler.enable(2, 3);
+        final boolean[] expected = { true, true, false, false, true, false, false, true };
+        String lastCapture = null;
+        for (int i = 0; i < expected.length; i++) {
+            final ImpossibleCondition e = new ImpossibleCondition("message");
+            if (expected[i]) {
+                assertTrue(e.getStackTrace().length > 1);
+                assertTrue(last(e).contains("captured"));
+                lastCapture = last(e).replace("captured", "omitted");
+            } else {
+                assertEquals(1, e.getStackTrace().length);
+                assertEquals(lastCapture, last(e));
+            }
+        }
+    }
+
+    /** Samples like the library exceptions, and counts how often it fills in or reads its stack trace. */
+    static final class CountingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static int filled;
+        static int read;
+
+        @Override
+        public Throwable fillInStackTrace() {
+            if (! StackTraceSampler.capture(this)) return this;
+            filled++;
+            return StackTraceSampler.captured(super.fillInStackTrace());
+        }
+
+        @Override
+        public StackTraceElement[] getStackTrace() {
+            read++;
+            return super.getStackTrace();
+        }
+    }
+
+    @Test
+    public void omittedNeverFillsInStackTrace() {
+        StackTraceSampler.enable(1, 1000);
+        CountingException.filled = 0;
+        CountingException.read = 0;
+        for (int i = 0; i < 5; i++) new CountingException();
+        /* Only the first occurrence is filled in, and read once to append the sample tag. */
+        assertEquals(1, CountingException.filled);
+        assertEquals(1, CountingException.read);
+    }
+
+    @Test
+    public void samplesAssertByRule() {
+        StackTraceSampler.enable(1, 1000);
+        final Assert validation = new Assert.Argument();
+        validation.setTraceMode(Assert.TraceMode.SAMPLED);
+        final int[] lengths = new int[3];
+        for (int i = 0; i < lengths.length; i++) {
+            try {
+                validation.check("rule", false);
+            } catch (IllegalArgumentData e) {
+                lengths[i] = e.getStackTrace().length;
+            }
+        }
+        assertTrue(lengths[0] > 1);
+        assertEquals(1, lengths[1]);
+        assertEquals(1, lengths[2]);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class StripedCounterTest {
+
+    @Test
+    public void countsConcurrentUpdates() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        counter.increment();
+                        counter.add(2);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) thread.join();
+        assertEquals(8 * 10000 * 3, counter.sum());
+        assertEquals("240000", counter.toString());
+        counter.reset();
+        assertEquals(0, counter.sum());
+    }
+}
@@ -0,0 +1,707 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class AssertTest {
+
+    enum Rule { ANY }
+
+    @Test
+    public void fullStackTraceByDefault() {
+        final Assert validation = new Assert.Argument();
+        assertSame(Assert.TraceMode.FULL, validation.getTraceMode());
+        try {
+            validation.check(Rule.ANY, false);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertTrue(e.getStackTrace().length > 0);
+        }
+    }
+
+    @Test
+    public void stacklessKeepsExceptionType() {
+        final Assert validation = new Assert.Precondition();
+        validation.setTraceMode(Assert.TraceMode.NONE);
+        try {
+            validation.nonNegative(-1);
+            fail();
+        } catch (IllegalPreCondition e) {
+            assertEquals(0, e.getStackTrace().length);
+        }
+        assertSame(Assert.TraceMode.FULL, Assert.Precondition.getTraceMode());
+    }
+
+    @Test
+    public void fixedArityOverloads() {
+        final Object o = new Object();
+        assertTrue(Assert.Argument.checkAll(true, true, true));
+        assertTrue(Assert.Argument.checkAll(Rule.ANY, true, true, true, true, true));
+        assertTrue(Assert.Argument.notNull(o, o, o, o));
+        try {
+            Assert.Argument.checkAll(Rule.ANY, true, true, false);
+            fail();
+        } catch (IllegalArgumentData e) {
+            // expected
+        }
+        try {
+            Assert.Argument.notNull(o, o, o, null, o);
+            fail();
+        } catch (IllegalArgumentData e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void sharedExceptionPerRule() {
+        final Assert validation = new Assert.Argument();
+        validation.setTraceMode(Assert.TraceMode.SHARED);
+        RuntimeException first = null;
+        for (int i = 0; i < 3; i++) {
+            try {
+                validation.checkAll(Rule.ANY, true, false);
+                fail();
+            } catch (IllegalArgumentData e) {
+                if (first == null) first = e;
+                assertSame(first, e);
+                assertSame(e, e.fillInStackTrace());
+                assertEquals(0, e.getStackTrace().length);
+            }
+        }
+        try {
+            validation.check(false);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertNotSame(first, e);
+        }
+    }
+
+    static RuntimeException failure(final Assert validation) {
+        try {
+            validation.check(Rule.ANY, false);
+        } catch (RuntimeException e) {
+            return e;
+        }
+        throw new AssertionError();
+    }
+
+    @Test
+    public void replacesModifiedSharedException() {
+        final Assert validation = new Assert.Argument();
+        validation.setTraceMode(Assert.TraceMode.SHARED);
+        final RuntimeException first = failure(validation);
+        assertSame(first, failure(validation));
+        first.initCause(new IllegalStateException());
+        final RuntimeException second = failure(validation);
+        assertNotSame(first, second);
+        assertNull(second.getCause());
+        assertSame(second, failure(validation));
+    }
+
+    @Test
+    public void replacesSharedExceptionWithSuppressed() {
+        final Assert validation = new Assert.Argument();
+        validation.setTraceMode(Assert.TraceMode.SHARED);
+        final RuntimeException first = failure(validation);
+        assertTrue(Suppression.isEmpty(first));
+        first.addSuppressed(new IllegalStateException("close"));
+        assertFalse(Suppression.isEmpty(first));
+        final RuntimeException second = failure(validation);
+        assertNotSame(first, second);
+        assertTrue(Suppression.isEmpty(second));
+        assertSame(second, failure(validation));
+    }
+
+    @Test
+    public void collectsAllViolations() {
+        assertTrue(Assert.Argument.collect().notNull("a").range(5, 0, 10).positive(1).validate());
+        try {
+            Assert.Argument.collect()
+                .notNull(null)
+                .range(50, 0, 10)
+                .check(Rule.ANY, false)
+                .validate();
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("3 violations: null; 50 must be in range (0-10), excluding limits; ANY", e.getMessage());
+        }
+        final Validator outer = Assert.Argument.collect().nonNegative(-1);
+        final Validator inner = Assert.Argument.collect();
+        assertNotSame(outer, inner);
+        assertTrue(inner.validate());
+        assertEquals(1, outer.finish().size());
+    }
+
+    @Test
+    public void collectsPrimitiveOverloads() {
+        assertTrue(Assert.Argument.collect().range(0.5f, 0f, 1f).range(0.5, 0.0, 1.0).rangeInclusive(1, 1, 2).rangeInclusive(2L, 1L, 2L)
+            .rangeInclusive(1f, 0f, 1f).rangeInclusive(0.0, 0.0, 1.0).nonNegative(0L).nonNegative(0f).nonNegative(0.0)
+            .positive(1L).positive(1.5f).finite(1f).finite(1.0).equal(1.5f, 1.5f).equal(2.5, 2.5).validate());
+        final List<String> messages = Assert.Argument.collect()
+            .range(1.1f, 0f, 1f)
+            .range(1.0, 0.0, 1.0)
+            .rangeInclusive(3L, 0L, 2L)
+            .nonNegative(Float.NaN)
+            .nonNegative(-0.5)
+            .positive(0L)
+            .positive(Double.POSITIVE_INFINITY)
+            .finite(Float.NEGATIVE_INFINITY)
+            .equal(0.1f, 0.2f)
+            .finish();
+        assertEquals(Arrays.asList(
+            "1.1 must be in range (0.0-1.0), excluding limits",
+            "1.0 must be in range (0.0-1.0), excluding limits",
+            "3 must be in range [0-2]",
+            "NaN must be finite",
+            "-0.5 must not be negative",
+            "0 must be positive",
+            "Infinity must be finite",
+            "-Infinity must be finite",
+            "0.1 must be equal to 0.2"), messages);
+    }
+
+    @Test
+    public void rejectsEndedValidation() {
+        final Validator ended = Assert.Argument.collect().nonNegative(-1);
+        assertEquals(1, ended.finish().size());
+        final Validator current = Assert.Argument.collect();
+        try {
+            ended.nonNegative(-1);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertTrue(current.validate());
+        final Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        final Validator failing = Assert.Argument.collect().equal(broken, "a");
+        try {
+            failing.validate();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            failing.size();
+            fail();
+        } catch (IllegalStateException e) {
+            // released despite the failure
+        }
+    }
+
+    @Test
+    public void testReturnsViolation() {
+        assertSame(Violation.NONE, Assert.Argument.testRange(5, 0, 10));
+        assertSame(Violation.OUT_OF_RANGE, Assert.Argument.testRange(10, 0, 10));
+        assertSame(Violation.NULL, Assert.Argument.testNotNull(null));
+        assertSame(Violation.NOT_FINITE, Assert.Argument.testPositive(Double.NaN));
+        assertSame(Violation.NOT_POSITIVE, Assert.Argument.testPositive(-1.0));
+        final RuntimeException e = Assert.Precondition.failure(Violation.NEGATIVE);
+        assertTrue(e instanceof IllegalPreCondition);
+    }
+
+    @Test
+    public void rendersNestedMessages() {
+        final Message inner = new Message(Assert.EQUAL, 1, 2);
+        final Message outer = new Message(Assert.RANGE, inner, "a", "b");
+        assertEquals("1 must be equal to 2 must be in range (a-b), excluding limits", outer.toString());
+        assertEquals("1 must be equal to 2", inner.toString());
+    }
+
+    @Test
+    public void rendersMessages() {
+        try {
+            Assert.Argument.equal("a", "b");
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("a must be equal to b", e.getMessage());
+            assertEquals(IllegalArgumentData.class.getName() + ": a must be equal to b", e.toString());
+            assertEquals(AssertTest.class.getName(), e.getStackTrace()[3].getClassName());
+        }
+        try {
+            Assert.Argument.range(3, new int[3]);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("3 must be in range [0-2]", e.getMessage());
+        }
+        try {
+            Assert.Argument.contains(null, Collections.emptySet());
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("collection must contain null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rendersOnlyIfRequested() {
+        final int[] rendered = new int[1];
+        final Object argument = new Object() {
+            @Override
+            public String toString() {
+                rendered[0]++;
+                return "a";
+            }
+        };
+        final Assert full = new Assert.Argument();
+        assertSame(Assert.TraceMode.FULL, full.getTraceMode());
+        try {
+            full.equal(argument, "b");
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals(0, rendered[0]);
+            assertTrue(e.getStackTrace().length > 0);
+            assertEquals("a must be equal to b", e.getMessage());
+            assertEquals("a must be equal to b", e.getMessage());
+            assertEquals(1, rendered[0]);
+        }
+        full.setTraceMode(Assert.TraceMode.SAMPLED);
+        try {
+            full.equal(argument, "b");
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals(1, rendered[0]);
+            assertEquals("a must be equal to b", e.getMessage());
+            assertEquals(2, rendered[0]);
+        }
+    }
+
+    @Test
+    public void deferredMessages() {
+        final MessageTemplate template = MessageTemplate.compile("order {} must have {} items");
+        assertTrue(Assert.Argument.check(true, template, 7, 3));
+        try {
+            Assert.Argument.check(false, template, 7, 3);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("order 7 must have 3 items", e.getMessage());
+        }
+        final int[] calls = new int[1];
+        final MessageSupplier supplier = new MessageSupplier() {
+            @Override
+            public String get() {
+                calls[0]++;
+                return "supplied";
+            }
+        };
+        assertTrue(Assert.Argument.check(true, supplier));
+        assertEquals(0, calls[0]);
+        try {
+            Assert.Argument.check(false, supplier);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals(0, calls[0]);
+            assertTrue(e.getStackTrace().length > 0);
+            assertEquals("supplied", e.getMessage());
+            assertEquals(1, calls[0]);
+        }
+        final Assert stackless = new Assert.Argument();
+        stackless.setTraceMode(Assert.TraceMode.NONE);
+        try {
+            stackless.check(false, supplier);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals(1, calls[0]);
+            assertEquals("supplied", e.getMessage());
+            assertEquals("supplied", e.getMessage());
+            assertEquals(2, calls[0]);
+        }
+    }
+
+    @Test
+    public void suppliesMessageOnce() throws InterruptedException {
+        final AtomicInteger calls = new AtomicInteger();
+        final MessageSupplier supplier = new MessageSupplier() {
+            @Override
+            public String get() {
+                calls.incrementAndGet();
+                Thread.yield();
+                return "supplied";
+            }
+        };
+        final Assert stackless = new Assert.Argument();
+        stackless.setTraceMode(Assert.TraceMode.NONE);
+        final RuntimeException failure;
+        try {
+            stackless.check(false, supplier);
+            fail();
+            return;
+        } catch (IllegalArgumentData e) {
+            failure = e;
+        }
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    assertEquals("supplied", failure.getMessage());
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) thread.join();
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void failingSupplierKeepsException() {
+        try {
+            Assert.Argument.check(false, new MessageSupplier() {
+                @Override
+                public String get() {
+                    throw new IllegalStateException("broken");
+                }
+            });
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("message supplier failed: java.lang.IllegalStateException: broken", e.getMessage());
+        }
+    }
+
+    @Test
+    public void disabledCategoryNeverRaises() {
+        final Assert validation = new Assert.Argument() {
+            @Override
+            boolean enabled() {
+                return false;
+            }
+        };
+        assertTrue(validation.check(false));
+        assertTrue(validation.checkAll(Rule.ANY, true, false, true));
+        assertTrue(validation.notNull(new Object[] { null }));
+        assertTrue(validation.range(50, 0, 10));
+        assertTrue(validation.collect().positive(-1).validate());
+        assertSame(Violation.NOT_POSITIVE, validation.testPositive(-1));
+    }
+
+    @Test
+    public void enabledFlagsAreConstants() throws NoSuchFieldException {
+        // What the JIT needs to fold checks of a disabled category, which AssertDisabledBenchmark measures.
+        for (final String name : new String[] { "ARGUMENT", "ATTRIBUTE", "ENVIRONMENT", "PRECONDITION", "POSCONDITION", "INVARIANT" }) {
+            final int modifiers = Assert.class.getField(name + "_ENABLED").getModifiers();
+            assertTrue(name, Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers));
+        }
+        for (final Field field : CategorySwitch.class.getDeclaredFields()) {
+            if (field.isSynthetic()) continue; // added by coverage instrumentation
+            final int modifiers = field.getModifiers();
+            assertTrue(field.getName(), Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers));
+        }
+    }
+
+    @Test
+    public void switchedOnAtRuntime() {
+        // Attribute is disabled for all test tasks by build.gradle.
+        assertFalse(Assert.ATTRIBUTE_ENABLED);
+        assertFalse(Assert.Attribute.isEnabled());
+        assertTrue(Assert.Attribute.check(false));
+        if (! Assert.isSwitchable()) {
+            try {
+                Assert.Attribute.setSwitchedOn(true);
+                fail();
+            } catch (IllegalStateException e) {
+                // expected before Java 9
+            }
+            assertFalse(Assert.Attribute.isSwitchedOn());
+            assertTrue(Assert.Attribute.check(false));
+            return;
+        }
+        try {
+            Assert.Attribute.setSwitchedOn(true);
+            assertTrue(Assert.Attribute.isSwitchedOn());
+            assertTrue(Assert.Attribute.isEnabled());
+            assertTrue(new Assert.Attribute().isEnabled());
+            assertFalse(Assert.Invariant.isSwitchedOn());
+            try {
+                Assert.Attribute.check(false);
+                fail();
+            } catch (IllegalAttributeData e) {
+                // expected
+            }
+        } finally {
+            Assert.Attribute.setSwitchedOn(false);
+        }
+        assertFalse(Assert.Attribute.isEnabled());
+        assertTrue(Assert.Attribute.check(false));
+        Assert.Invariant.setSwitchedOn(false);
+        assertTrue(Assert.Invariant.isEnabled());
+        assertSame(Assert.Invariant, Assert.category("Invariant"));
+    }
+
+    @Test
+    public void primitiveOverloads() {
+        assertTrue(Assert.Argument.range(0.5f, 0f, 1f));
+        assertTrue(Assert.Argument.rangeInclusive(1.0, 0.0, 1.0));
+        assertTrue(Assert.Argument.rangeInclusive((short) 10, (short) 0, (short) 10));
+        assertTrue(Assert.Argument.nonNegative(0L));
+        assertTrue(Assert.Argument.positive(0.1f));
+        assertTrue(Assert.Argument.finite(-1e300));
+        assertSame(Violation.OUT_OF_RANGE, Assert.Argument.testRange(1.0, 0.0, 1.0));
+        assertSame(Violation.OUT_OF_RANGE, Assert.Argument.testRangeInclusive(Double.NaN, 0.0, 1.0));
+        assertSame(Violation.NOT_FINITE, Assert.Argument.testNonNegative(Float.NaN));
+        assertSame(Violation.NEGATIVE, Assert.Argument.testNonNegative(-1f));
+        assertSame(Violation.NOT_FINITE, Assert.Argument.testFinite(Double.POSITIVE_INFINITY));
+        try {
+            Assert.Argument.range(1.5f, 0f, 1f);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("1.5 must be in range (0.0-1.0), excluding limits", e.getMessage());
+        }
+        try {
+            Assert.Argument.rangeInclusive(1.5, 0.0, 1.0);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("1.5 must be in range [0.0-1.0]", e.getMessage());
+        }
+        try {
+            Assert.Argument.nonNegative(Double.POSITIVE_INFINITY);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("Infinity must be finite", e.getMessage());
+        }
+        try {
+            Assert.Argument.finite(Float.NaN);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("NaN must be finite", e.getMessage());
+        }
+    }
+
+    @Test
+    public void bulkArrayChecks() {
+        final double[] values = new double[3000];
+        assertTrue(Assert.Argument.allFinite(values));
+        assertTrue(Assert.Argument.allNonNegative(values));
+        values[2500] = -0.0;
+        assertTrue(Assert.Argument.allNonNegative(values));
+        values[2000] = Double.NaN;
+        values[2999] = -1;
+        assertTrue(Assert.Argument.allInRange(values, 0, 2000, 0.0, 0.0));
+        try {
+            Assert.Argument.allFinite(values);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("NaN at index 2000 must be finite", e.getMessage());
+        }
+        try {
+            Assert.Argument.allInRange(new int[] { 1, 2, 11, 12 }, 0, 10);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("11 at index 2 must be in range [0-10]", e.getMessage());
+        }
+        try {
+            Assert.Argument.allNotNull(new Object[] { "a", null });
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("element at index 1 must not be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void bulkArrayChecksSplitLargeArrays() {
+        final Assert validation = new Assert.Argument();
+        assertEquals(Assert.SEQUENTIAL, validation.getParallelThreshold());
+        final int threshold = 1 << 12;
+        validation.setParallelThreshold(threshold);
+        final long[] values = new long[threshold * 3];
+        assertTrue(validation.allNonNegative(values));
+        values[values.length - 1] = -1;
+        values[threshold + 7] = -2;
+        try {
+            validation.allNonNegative(values);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("-2 at index " + (threshold + 7) + " must not be negative", e.getMessage());
+        }
+        try {
+            validation.setParallelThreshold(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void bulkCollectionChecks() {
+        final List<String> values = Arrays.asList("a", "bb", "ccc", "bb");
+        assertTrue(Assert.Argument.allNotNull(values));
+        assertTrue(Assert.Argument.allUnique(new HashSet<String>(values)));
+        try {
+            Assert.Argument.allUnique(values);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("bb at index 3 must be unique", e.getMessage());
+        }
+        try {
+            Assert.Argument.allMatch(values, new ElementCondition<String>() {
+                @Override
+                public boolean test(String element) {
+                    return element.length() < 3;
+                }
+            });
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("ccc at index 2 must satisfy condition", e.getMessage());
+        }
+    }
+
+    @Test
+    public void bulkCollectionChecksIterateOnce() {
+        final List<String> list = Arrays.asList("a", "bb", "a");
+        final Iterable<String> once = new Iterable<String>() {
+            private boolean used;
+
+            @Override
+            public Iterator<String> iterator() {
+                if (used) throw new IllegalStateException("iterated twice");
+                used = true;
+                return list.iterator();
+            }
+        };
+        try {
+            Assert.Argument.allUnique(once);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("a at index 2 must be unique", e.getMessage());
+        }
+    }
+
+    @Test
+    public void bulkCollectionChecksSplitLargeCollections() {
+        final Assert validation = new Assert.Argument();
+        final int threshold = 1 << 12;
+        validation.setParallelThreshold(threshold);
+        final List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < threshold * 2; i++) values.add(Integer.valueOf(i));
+        assertTrue(validation.allNotNull(values));
+        assertTrue(validation.allUnique(values));
+        final int last = values.size() - 1;
+        values.set(last, null);
+        values.set(threshold + 3, null);
+        try {
+            validation.allNotNull(values);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("element at index " + (threshold + 3) + " must not be null", e.getMessage());
+        }
+        values.set(last, Integer.valueOf(5));
+        values.set(threshold + 3, Integer.valueOf(threshold + 3));
+        try {
+            validation.allUnique(values);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("5 at index " + last + " must be unique", e.getMessage());
+        }
+        values.set(threshold + 9, Integer.valueOf(threshold + 8));
+        try {
+            validation.allUnique(values);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals((threshold + 8) + " at index " + (threshold + 9) + " must be unique", e.getMessage());
+        }
+    }
+
+    @Test
+    public void allowedValues() {
+        final AllowedValues dense = AllowedValues.of(200, 201, 204, 404);
+        final AllowedValues sparse = AllowedValues.of(1L, 1L << 40, -(1L << 40));
+        final AllowedValues codes = AllowedValues.of(Arrays.asList("A", "B"));
+        assertTrue(Assert.Argument.contains(204, dense));
+        assertTrue(Assert.Argument.contains(Integer.valueOf(404), dense));
+        assertTrue(Assert.Argument.contains(1L << 40, sparse));
+        assertTrue(Assert.Argument.contains("B", codes));
+        assertEquals(4, dense.size());
+        assertSame(Violation.NOT_CONTAINED, Assert.Argument.testContains(203, dense));
+        assertSame(Violation.NOT_CONTAINED, Assert.Argument.testContains(2, sparse));
+        assertSame(Violation.NOT_CONTAINED, Assert.Argument.testContains("C", codes));
+        try {
+            Assert.Argument.contains(null, codes);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("null must be an allowed value", e.getMessage());
+        }
+        try {
+            Assert.Argument.contains(500, dense);
+            fail();
+        } catch (IllegalArgumentData e) {
+            assertEquals("500 must be an allowed value", e.getMessage());
+        }
+        final AllowedValues mixed = AllowedValues.of(Arrays.asList("A", Long.valueOf(5), Integer.valueOf(5), Short.valueOf((short) 7)));
+        assertEquals(3, mixed.size());
+        assertTrue(mixed.contains(Integer.valueOf(5)));
+        assertTrue(mixed.contains(Byte.valueOf((byte) 7)));
+        assertTrue(mixed.contains(5L));
+        assertTrue(mixed.contains("A"));
+        assertSame(Violation.NOT_CONTAINED, Assert.Argument.testContains(6, mixed));
+    }
+
+    @Test
+    public void environmentSnapshot() {
+        final Properties properties = new Properties();
+        properties.setProperty("port", "8080");
+        properties.setProperty("debug", "yes");
+        final Assert.Environment validation = new Assert.Environment();
+        validation.setSnapshot(new EnvironmentSnapshot(Collections.singletonMap("HOME", "/root"), properties));
+        assertTrue(validation.exist("HOME"));
+        assertTrue(validation.existProperty("port"));
+        assertTrue(validation.isInt("port"));
+        assertTrue(validation.rangeInclusive("port", 1, 65535));
+        assertSame(validation.getSnapshot().getInt("port"), validation.getSnapshot().getInt("port"));
+        assertNull(validation.getSnapshot().getInt("missing"));
+        assertNull(validation.getSnapshot().getBoolean("missing"));
+        assertSame(Assert.Environment, Assert.environment());
+        try {
+            validation.isBoolean("debug");
+            fail();
+        } catch (IllegalEnvironmentData e) {
+            assertEquals("debug must be a boolean, was yes", e.getMessage());
+        }
+        try {
+            validation.rangeInclusive("port", 1, 1024);
+            fail();
+        } catch (IllegalEnvironmentData e) {
+            assertEquals("port must be in range [1-1024], was 8080", e.getMessage());
+        }
+        try {
+            validation.exist("port");
+            fail();
+        } catch (IllegalEnvironmentData e) {
+            assertEquals("port must exist in environment", e.getMessage());
+        }
+    }
+}
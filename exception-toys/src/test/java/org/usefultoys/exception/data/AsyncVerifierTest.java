@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.usefultoys.exception.AsyncExceptionReporter.Overflow;
+
+public class AsyncVerifierTest {
+
+    private final List<RuntimeException> failures = new CopyOnWriteArrayList<RuntimeException>();
+
+    private final AsyncVerifier.FailureHandler handler = new AsyncVerifier.FailureHandler() {
+        @Override
+        public void failed(RuntimeException exception) {
+            failures.add(exception);
+        }
+    };
+
+    private static DeferredCondition condition(final boolean result) {
+        return new DeferredCondition() {
+            @Override
+            public boolean evaluate() {
+                return result;
+            }
+        };
+    }
+
+    @Test
+    public void reportsFailures() throws InterruptedException {
+        final AsyncVerifier verifier = new AsyncVerifier(2, 16, Overflow.BLOCK, handler).start();
+        assertFalse(verifier.isCapturingCallSites());
+        assertTrue(verifier.submit(Assert.Poscondition, condition(true)));
+        assertTrue(verifier.submit(Assert.Poscondition, condition(false)));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+        assertEquals(2, verifier.getVerifiedCount());
+        assertEquals(1, verifier.getFailedCount());
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof IllegalPosCondition);
+        assertEquals(0, failures.get(0).getStackTrace().length);
+        assertFalse(verifier.submit(Assert.Poscondition, condition(false)));
+        assertEquals(1, verifier.getDroppedCount());
+    }
+
+    @Test
+    public void reportsFailuresWithCallSite() throws InterruptedException {
+        final AsyncVerifier verifier = new AsyncVerifier(1, 16, Overflow.BLOCK, handler);
+        verifier.setCapturingCallSites(true);
+        verifier.start();
+        assertTrue(verifier.submit(Assert.Poscondition, condition(false)));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof IllegalPosCondition);
+        assertEquals(AsyncVerifierTest.class.getName(), failures.get(0).getStackTrace()[0].getClassName());
+    }
+
+    @Test
+    public void defaultWorkersAreNamedDaemonThreads() throws InterruptedException {
+        final List<Thread> workers = new CopyOnWriteArrayList<Thread>();
+        final AsyncVerifier verifier = new AsyncVerifier(1, 16, Overflow.BLOCK, new AsyncVerifier.FailureHandler() {
+            @Override
+            public void failed(RuntimeException exception) {
+                workers.add(Thread.currentThread());
+            }
+        }).start();
+        assertTrue(verifier.submit(Assert.Poscondition, condition(false)));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+        assertEquals(1, workers.size());
+        assertTrue(workers.get(0).isDaemon());
+        assertEquals("async-verifier-1", workers.get(0).getName());
+    }
+
+    @Test
+    public void dropsNewestWhenFull() throws InterruptedException {
+        final AsyncVerifier verifier = new AsyncVerifier(1, 2, Overflow.DROP_NEWEST, handler);
+        assertTrue(verifier.submit(Assert.Invariant, condition(false)));
+        assertTrue(verifier.submit(Assert.Invariant, condition(false)));
+        assertFalse(verifier.submit(Assert.Invariant, condition(false)));
+        assertEquals(2, verifier.getPendingCount());
+        verifier.start();
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+        assertEquals(2, failures.size());
+        assertTrue(failures.get(0) instanceof IllegalInvariant);
+    }
+
+    @Test
+    public void closeBeforeStartVerifiesPending() throws InterruptedException {
+        final AsyncVerifier verifier = new AsyncVerifier(2, 16, Overflow.BLOCK, handler);
+        assertTrue(verifier.submit(Assert.Invariant, condition(false)));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+        assertEquals(1, verifier.getVerifiedCount());
+        assertEquals(1, failures.size());
+    }
+
+    @Test
+    public void errorInConditionIsFailure() throws InterruptedException {
+        final AsyncVerifier verifier = new AsyncVerifier(1, 16, Overflow.BLOCK, handler).start();
+        assertTrue(verifier.submit(Assert.Invariant, new DeferredCondition() {
+            @Override
+            public boolean evaluate() {
+                throw new AssertionError("broken");
+            }
+        }));
+        assertTrue(verifier.submit(Assert.Invariant, condition(false)));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+        assertEquals(2, verifier.getFailedCount());
+        assertEquals(2, failures.size());
+        assertTrue(failures.get(0).getCause() instanceof AssertionError);
+    }
+
+    @Test
+    public void handlerFailureGoesToUncaughtExceptionHandler() throws InterruptedException {
+        final List<Throwable> uncaught = new CopyOnWriteArrayList<Throwable>();
+        final ThreadFactory factory = new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                    @Override
+                    public void uncaughtException(final Thread t, final Throwable e) {
+                        uncaught.add(e);
+                    }
+                });
+                return thread;
+            }
+        };
+        final AsyncVerifier.FailureHandler failing = new AsyncVerifier.FailureHandler() {
+            @Override
+            public void failed(RuntimeException exception) {
+                throw new IllegalStateException("handler");
+            }
+        };
+        final AsyncVerifier verifier = new AsyncVerifier(1, 16, Overflow.BLOCK, failing, factory).start();
+        verifier.submit(Assert.Invariant, condition(false));
+        verifier.submit(Assert.Invariant, condition(false));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+        assertEquals(2, verifier.getFailedCount());
+        assertEquals(2, uncaught.size());
+    }
+
+    @Test
+    public void interruptDoesNotCloseVerifier() throws InterruptedException {
+        final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+        final ThreadFactory factory = new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                threads.add(thread);
+                return thread;
+            }
+        };
+        final AsyncVerifier verifier = new AsyncVerifier(2, 16, Overflow.BLOCK, handler, factory).start();
+        threads.get(0).interrupt();
+        assertTrue(verifier.submit(Assert.Invariant, condition(false)));
+        assertTrue(verifier.close(5, TimeUnit.SECONDS));
+        assertEquals(1, failures.size());
+        assertEquals(0, verifier.getDroppedCount());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class SampledInvariantTest {
+
+    private static final DeferredCondition HOLDS = new DeferredCondition() {
+        @Override
+        public boolean evaluate() {
+            return true;
+        }
+    };
+
+    private static final DeferredCondition FAILS = new DeferredCondition() {
+        @Override
+        public boolean evaluate() {
+            return false;
+        }
+    };
+
+    @Test
+    public void fullRateVerifiesEveryCall() {
+        final SampledInvariant invariant = new SampledInvariant(1.0, 1.0);
+        for (int i = 0; i < 100; i++) assertTrue(invariant.check(HOLDS));
+        assertEquals(100, invariant.getSampledCount());
+        assertEquals(0, invariant.getSkippedCount());
+        try {
+            invariant.check(FAILS);
+            fail();
+        } catch (IllegalInvariant e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void partialRateSkipsCalls() {
+        final SampledInvariant invariant = new SampledInvariant(0.25, 1.0);
+        for (int i = 0; i < 10000; i++) invariant.check(HOLDS);
+        assertEquals(10000, invariant.getSampledCount() + invariant.getSkippedCount());
+        assertTrue(invariant.toString(), invariant.getSampledCount() > 1500 && invariant.getSampledCount() < 3500);
+    }
+
+    @Test
+    public void adaptsRateToBudgetWithinBounds() {
+        final long window = SampledInvariant.WINDOW_NANOS;
+        final SampledInvariant invariant = new SampledInvariant(Assert.Invariant, 1.0, 0.01, 0.05);
+        long now = System.nanoTime() + window;
+        invariant.adapt(now);
+        assertEquals(1.0, invariant.getRate(), 0);
+        now += window;
+        invariant.spend(window);
+        invariant.adapt(now);
+        assertEquals(0.05, invariant.getRate(), 1e-6);
+        now += window;
+        invariant.spend(window * 1000);
+        invariant.adapt(now);
+        assertEquals(0.01, invariant.getRate(), 1e-6);
+        now += window;
+        invariant.adapt(now);
+        assertEquals(0.02, invariant.getRate(), 1e-6);
+        for (int i = 0; i < 10; i++) {
+            now += window;
+            invariant.adapt(now);
+        }
+        assertEquals(1.0, invariant.getRate(), 0);
+        invariant.adapt(now + window / 2);
+        assertEquals(1.0, invariant.getRate(), 0);
+    }
+
+    @Test
+    public void rejectsMinimalRateAboveRate() {
+        try {
+            new SampledInvariant(Assert.Invariant, 0.1, 0.2, 0.05);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
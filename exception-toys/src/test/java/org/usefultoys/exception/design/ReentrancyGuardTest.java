@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.design;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ReentrancyGuardTest {
+
+    @Test
+    public void rejectsReentrancy() {
+        for (final ReentrancyGuard guard : new ReentrancyGuard[] { ReentrancyGuard.perObject("a"), ReentrancyGuard.perThread("b") }) {
+            guard.enter();
+            assertTrue(guard.isHeldByCurrentThread());
+            try {
+                guard.enter();
+                fail();
+            } catch (UnsupportedReentrancy e) {
+                assertEquals(guard.getName() + " was reentered by thread " + Thread.currentThread().getName(), e.getMessage());
+            }
+            guard.exit();
+            assertFalse(guard.isHeldByCurrentThread());
+            try {
+                guard.exit();
+                fail();
+            } catch (UnsupportedCallOrder e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void perThreadAllowsConcurrentEntry() throws InterruptedException {
+        final ReentrancyGuard guard = ReentrancyGuard.perThread("guard");
+        guard.enter();
+        final boolean[] entered = new boolean[1];
+        final Thread other = new Thread() {
+            @Override
+            public void run() {
+                guard.enter();
+                entered[0] = true;
+                guard.exit();
+            }
+        };
+        other.start();
+        other.join();
+        assertTrue(entered[0]);
+        guard.exit();
+    }
+
+    /** Threads race to enter; at most one may be inside at any time, and every rejection must name a cause. */
+    @Test
+    public void perObjectAdmitsOneThreadUnderContention() throws InterruptedException {
+        final ReentrancyGuard guard = ReentrancyGuard.perObject("guard");
+        final AtomicInteger inside = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        final AtomicInteger entries = new AtomicInteger();
+        final AtomicInteger rejections = new AtomicInteger();
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 20000; i++) {
+                        try {
+                            guard.enter();
+                        } catch (UnsupportedReentrancy e) {
+                            if (e.getMessage().indexOf(" while held by ") < 0) overlaps.incrementAndGet();
+                            rejections.incrementAndGet();
+                            continue;
+                        }
+                        if (inside.incrementAndGet() != 1) overlaps.incrementAndGet();
+                        entries.incrementAndGet();
+                        inside.decrementAndGet();
+                        guard.exit();
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        start.countDown();
+        for (final Thread worker : workers) worker.join();
+        assertEquals(0, overlaps.get());
+        assertEquals(threads * 20000, entries.get() + rejections.get());
+        assertFalse(guard.isHeldByCurrentThread());
+        guard.enter();
+        guard.exit();
+    }
+}
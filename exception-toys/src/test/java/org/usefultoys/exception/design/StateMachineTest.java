@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.design;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class StateMachineTest {
+
+    enum State { NEW, INITIALIZED, RUNNING, STOPPED }
+
+    private static final StateMachine.Transitions<State> LIFECYCLE = StateMachine.transitions(State.class)
+        .allow(State.NEW, State.INITIALIZED)
+        .allow(State.INITIALIZED, State.RUNNING, State.STOPPED)
+        .allow(State.RUNNING, State.STOPPED);
+
+    @Test
+    public void enforcesCallOrder() {
+        final StateMachine<State> machine = new StateMachine<State>("Server", LIFECYCLE, State.NEW);
+        try {
+            machine.transition(State.INITIALIZED, State.RUNNING);
+            fail();
+        } catch (TemporalDependency e) {
+            assertEquals("Server expected state INITIALIZED, but was NEW", e.getMessage());
+        }
+        machine.transition(State.NEW, State.INITIALIZED);
+        assertSame(State.INITIALIZED, machine.moveTo(State.RUNNING));
+        machine.require(State.RUNNING);
+        assertTrue(machine.is(State.RUNNING));
+        try {
+            machine.transition(State.INITIALIZED, State.RUNNING);
+            fail();
+        } catch (UnsupportedCallOrder e) {
+            assertEquals("Server expected state INITIALIZED, but was RUNNING", e.getMessage());
+        }
+        machine.moveTo(State.STOPPED);
+        try {
+            machine.moveTo(State.RUNNING);
+            fail();
+        } catch (UnsupportedCallOrder e) {
+            assertEquals("Server cannot move to RUNNING: expected state INITIALIZED, but was STOPPED", e.getMessage());
+        }
+        try {
+            machine.transition(State.STOPPED, State.NEW);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // not declared in the table
+        }
+    }
+
+    @Test
+    public void oneThreadWinsTransition() throws InterruptedException {
+        final StateMachine<State> machine = new StateMachine<State>("Server", LIFECYCLE, State.INITIALIZED);
+        final AtomicInteger started = new AtomicInteger();
+        final CountDownLatch go = new CountDownLatch(1);
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        go.await();
+                        machine.transition(State.INITIALIZED, State.RUNNING);
+                        started.incrementAndGet();
+                    } catch (UnsupportedCallOrder e) {
+                        // lost the race
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        go.countDown();
+        for (final Thread thread : threads) thread.join();
+        assertEquals(1, started.get());
+        assertSame(State.RUNNING, machine.get());
+    }
+}
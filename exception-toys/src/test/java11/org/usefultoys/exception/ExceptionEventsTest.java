@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+import org.usefultoys.exception.data.Assert;
+import org.usefultoys.exception.data.IllegalArgumentData;
+import org.usefultoys.exception.design.UnsupportedCallOrder;
+
+public class ExceptionEventsTest {
+
+    private static List<RecordedEvent> record(final Boolean enabled, final Runnable action) throws Exception {
+        final Path file = Files.createTempFile("exception-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            if (Boolean.TRUE.equals(enabled)) recording.enable(ExceptionCreatedEvent.NAME);
+            else if (Boolean.FALSE.equals(enabled)) recording.disable(ExceptionCreatedEvent.NAME);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void recordsLibraryException() throws Exception {
+        final List<RecordedEvent> events = record(true, () -> new UnsupportedCallOrder("not started"));
+        assertEquals(1, events.size());
+        final RecordedEvent event = events.get(0);
+        assertEquals("design", event.getString("category"));
+        assertEquals(UnsupportedCallOrder.class.getName(), event.getClass("exceptionClass").getName());
+        assertEquals("not started", event.getString("detail"));
+        assertTrue(event.getString("site"), event.getString("site").contains(ExceptionEventsTest.class.getName()));
+        assertEquals(Thread.currentThread().getName(), event.getThread().getJavaName());
+    }
+
+    @Test
+    public void recordsFailedCheck() throws Exception {
+        final List<RecordedEvent> events = record(true, () -> {
+            try {
+                Assert.Argument.check("rule", false);
+                fail();
+            } catch (RuntimeException e) {
+                // expected
+            }
+        });
+        assertEquals(1, events.size());
+        assertEquals("Argument", events.get(0).getString("category"));
+        assertEquals("rule", events.get(0).getString("detail"));
+        assertTrue(events.get(0).getString("site").contains(ExceptionEventsTest.class.getName()));
+    }
+
+    @Test
+    public void recordsPublicClassOfStacklessException() throws Exception {
+        final Assert category = new Assert.Argument();
+        category.setTraceMode(Assert.TraceMode.NONE);
+        final List<RecordedEvent> events = record(true, () -> {
+            try {
+                category.equal("a", "b");
+                fail();
+            } catch (RuntimeException e) {
+                // expected
+            }
+        });
+        assertEquals(1, events.size());
+        assertEquals(IllegalArgumentData.class.getName(), events.get(0).getClass("exceptionClass").getName());
+    }
+
+    @Test
+    public void recordsSharedExceptionOnce() throws Exception {
+        final Assert category = new Assert.Argument();
+        category.setTraceMode(Assert.TraceMode.SHARED);
+        final List<RecordedEvent> events = record(true, () -> {
+            for (int i = 0; i < 3; i++) {
+                try {
+                    category.check("rule", false);
+                    fail();
+                } catch (RuntimeException e) {
+                    // expected
+                }
+            }
+        });
+        assertEquals(1, events.size());
+        assertEquals("rule", events.get(0).getString("detail"));
+    }
+
+    @Test
+    public void recordsNothingWhenDisabled() throws Exception {
+        assertEquals(0, record(false, () -> new UnsupportedCallOrder("not started")).size());
+    }
+
+    @Test
+    public void recordsNothingByDefault() throws Exception {
+        assertEquals(0, record(null, () -> new UnsupportedCallOrder("not started")).size());
+    }
+}
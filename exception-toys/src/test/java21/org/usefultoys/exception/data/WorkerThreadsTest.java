@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Test;
+
+public class WorkerThreadsTest {
+
+    @Test
+    public void createsNamedVirtualThreads() {
+        final Runnable nothing = () -> { };
+        final ThreadFactory factory = WorkerThreads.factory("worker-");
+        final Thread first = factory.newThread(nothing);
+        assertTrue(first.isVirtual());
+        assertTrue(first.isDaemon());
+        assertEquals("worker-1", first.getName());
+        assertEquals("worker-2", factory.newThread(nothing).getName());
+    }
+}
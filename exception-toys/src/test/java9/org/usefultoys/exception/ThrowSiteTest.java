@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.usefultoys.exception.bug.ImpossibleCondition;
+
+public class ThrowSiteTest {
+
+    @After
+    public void disable() {
+        StackTraceSampler.disable();
+    }
+
+    private static String last(final Throwable e) {
+        final StackTraceElement[] trace = e.getStackTrace();
+        return trace[trace.length - 1].toString();
+    }
+
+    private static ImpossibleCondition siteA() {
+        return new ImpossibleCondition("a");
+    }
+
+    private static ImpossibleCondition siteB() {
+        return new ImpossibleCondition("b");
+    }
+
+    @Test
+    public void findsCreatingFrame() {
+        final StackTraceElement site = siteOf();
+        assertEquals("siteOf", site.getMethodName());
+    }
+
+    private static StackTraceElement siteOf() {
+        return ThrowSite.current();
+    }
+
+    @Test
+    public void samplesByThrowSite() {
+        StackTraceSampler.enable(1, 1000);
+        assertTrue(last(siteA()).contains("captured"));
+        assertEquals(1, siteA().getStackTrace().length);
+        final ImpossibleCondition b = siteB();
+        assertTrue(last(b).contains("captured"));
+        assertEquals("siteB", b.getStackTrace()[0].getMethodName());
+        assertEquals(1, siteB().getStackTrace().length);
+    }
+}
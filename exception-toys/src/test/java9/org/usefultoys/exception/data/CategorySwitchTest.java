@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class CategorySwitchTest {
+
+    @Test(timeout = 20000)
+    public void switchReachesCompiledLoop() throws InterruptedException {
+        // Attribute is disabled for all test tasks by build.gradle.
+        assertFalse(Assert.Attribute.isEnabled());
+        final AtomicBoolean raised = new AtomicBoolean();
+        final Thread loop = new Thread(() -> {
+            try {
+                while (true) Assert.Attribute.check(false);
+            } catch (IllegalAttributeData e) {
+                raised.set(true);
+            }
+        });
+        loop.setDaemon(true);
+        loop.start();
+        try {
+            Thread.sleep(500);
+            Assert.Attribute.setSwitchedOn(true);
+            loop.join();
+        } finally {
+            Assert.Attribute.setSwitchedOn(false);
+        }
+        assertTrue(raised.get());
+        assertTrue(Assert.Attribute.check(false));
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Daniel Felix Ferber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.usefultoys.exception.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class SharedExceptionTest {
+
+    @Test
+    public void replacesSharedExceptionWithSuppressed() {
+        final Assert validation = new Assert.Argument();
+        validation.setTraceMode(Assert.TraceMode.SHARED);
+        final RuntimeException first = AssertTest.failure(validation);
+        try (AutoCloseable resource = () -> { throw new IllegalStateException("close"); }) {
+            throw first;
+        } catch (Exception e) {
+            assertSame(first, e);
+            assertEquals(1, e.getSuppressed().length);
+        }
+        final RuntimeException second = AssertTest.failure(validation);
+        assertNotSame(first, second);
+        assertEquals(0, second.getSuppressed().length);
+        assertSame(second, AssertTest.failure(validation));
+    }
+}